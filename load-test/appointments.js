@@ -0,0 +1,57 @@
+// k6 load test comparing platform-thread and virtual-thread request execution.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=2000 load-test/appointments.js
+//
+// Run it once against the default mode and once with APPOINTMENT_VIRTUAL_THREADS=true,
+// then compare http_req_duration percentiles, http_req_failed and iterations/s.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const PATIENTS = parseInt(__ENV.PATIENTS || '500');
+const VUS = parseInt(__ENV.VUS || '1000');
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+function ssn(i) {
+    return `900-00-${String(i).padStart(4, '0')}`;
+}
+
+export function setup() {
+    for (let i = 0; i < PATIENTS; i++) {
+        http.post(`${BASE_URL}/api/appointments/bulk`, JSON.stringify({
+            ssn: ssn(i),
+            patientName: `Load Test ${i}`,
+            appointmentDetails: [
+                { reason: 'Checkup', date: '2025-01-01T09:00:00' },
+                { reason: 'Follow-up', date: '2025-02-01T09:00:00' },
+            ],
+        }), { headers: { 'Content-Type': 'application/json' } });
+    }
+}
+
+export default function () {
+    const i = Math.floor(Math.random() * PATIENTS);
+    if (Math.random() < 0.9) {
+        const res = http.get(`${BASE_URL}/api/appointments/latest?ssn=${ssn(i)}`, { tags: { name: 'latest' } });
+        check(res, { 'latest 200': (r) => r.status === 200 });
+    } else {
+        const res = http.get(`${BASE_URL}/api/appointments?reason=Checkup&size=50`, { tags: { name: 'byReason' } });
+        check(res, { 'by reason 200': (r) => r.status === 200 });
+    }
+}
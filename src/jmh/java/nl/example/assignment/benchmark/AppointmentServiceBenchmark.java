@@ -0,0 +1,94 @@
+package nl.example.assignment.benchmark;
+
+import nl.example.assignment.AssignmentApplication;
+import nl.example.assignment.dto.AppointmentDetails;
+import nl.example.assignment.dto.CreateAppointmentRequestBody;
+import nl.example.assignment.service.AppointmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link AppointmentService} calls against an embedded H2 database, through the real Spring context,
+ * transactions and repositories. The latest-appointment cache is switched off by default so the
+ * benchmark measures the database path; run with {@code -p latestCacheSize=10000} to measure hits.
+ */
+@State(Scope.Benchmark)
+public class AppointmentServiceBenchmark {
+
+    private static final int PATIENTS = 1_000;
+    private static final int APPOINTMENTS_PER_PATIENT = 20;
+    private static final String[] REASONS = {"Checkup", "Follow-up", "Vaccination", "Dental", "Physiotherapy"};
+
+    @Param({"0"})
+    public int latestCacheSize;
+
+    private ConfigurableApplicationContext context;
+    private AppointmentService appointmentService;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AssignmentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--appointment.cache.latest-appointment.maximum-size=" + latestCacheSize);
+        appointmentService = context.getBean(AppointmentService.class);
+
+        for (int i = 0; i < PATIENTS; i++) {
+            appointmentService.createBulkAppointments(request(BenchmarkData.ssn(i), APPOINTMENTS_PER_PATIENT));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object latestAppointment() {
+        return appointmentService.getLatestAppointmentForPatient(BenchmarkData.ssn(next.getAndIncrement() % PATIENTS));
+    }
+
+    @Benchmark
+    public Object appointmentsByReasonPage() {
+        return appointmentService.findAppointmentsByReason(REASONS[next.getAndIncrement() % REASONS.length], null, 100);
+    }
+
+    @Benchmark
+    public Object createBulkAppointments() {
+        return appointmentService.createBulkAppointments(request(BenchmarkData.ssn(PATIENTS + created.getAndIncrement()), 10));
+    }
+
+    private static CreateAppointmentRequestBody request(String ssn, int appointments) {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<AppointmentDetails> details = new ArrayList<>(appointments);
+        for (int i = 0; i < appointments; i++) {
+            details.add(new AppointmentDetails(start.plusDays(i), REASONS[i % REASONS.length]));
+        }
+        CreateAppointmentRequestBody request = new CreateAppointmentRequestBody();
+        request.setSsn(ssn);
+        request.setPatientName("Patient " + ssn);
+        request.setAppointmentDetails(details);
+        return request;
+    }
+}
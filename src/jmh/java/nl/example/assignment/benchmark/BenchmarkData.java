@@ -0,0 +1,42 @@
+package nl.example.assignment.benchmark;
+
+import nl.example.assignment.model.Appointment;
+import nl.example.assignment.model.Patient;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Detached entities shaped like production rows, shared by the in-memory benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final String[] REASONS = {"Checkup", "Follow-up", "Vaccination", "Dental", "Physiotherapy"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Appointment> appointments(int count) {
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, count / 10); i++) {
+            Patient patient = new Patient("Patient " + i, ssn(i));
+            patient.setId(UUID.randomUUID());
+            patients.add(patient);
+        }
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Appointment appointment = new Appointment(
+                    REASONS[i % REASONS.length], start.plusMinutes(15L * i), patients.get(i % patients.size()));
+            appointment.setId(UUID.randomUUID());
+            appointments.add(appointment);
+        }
+        return appointments;
+    }
+
+    static String ssn(int i) {
+        return String.format("100-%02d-%04d", (i / 10_000) % 100, i % 10_000);
+    }
+}
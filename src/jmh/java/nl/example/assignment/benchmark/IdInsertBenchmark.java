@@ -0,0 +1,116 @@
+package nl.example.assignment.benchmark;
+
+import nl.example.assignment.model.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Insert throughput into a uuid primary key that already holds {@code preloadRows} rows, with random
+ * ({@code UUID.randomUUID()}) against time-ordered ({@link TimeOrderedUuidGenerator}) keys.
+ *
+ * <p>Rows go in with plain JDBC in batches of {@value #BATCH_SIZE}, matching {@code hibernate.jdbc.batch_size},
+ * one transaction per batch; the score is rows per second. The table lives in an H2 file database by
+ * default. It does not use Spring, so it also runs from the {@code jmhJar} fat jar, which accepts JMH
+ * parameters; to measure PostgreSQL, where page splits and WAL volume dominate, point it at a scratch database
+ * with {@code -p jdbcUrl=jdbc:postgresql://localhost:5432/bench -p username=... -p password=...}.</p>
+ */
+@State(Scope.Benchmark)
+public class IdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int PRELOAD_BATCH_SIZE = 10_000;
+
+    @Param({"random", "timeOrdered"})
+    public String generator;
+
+    @Param({"2000000"})
+    public int preloadRows;
+
+    @Param({""})
+    public String jdbcUrl;
+
+    @Param({"sa"})
+    public String username;
+
+    @Param({""})
+    public String password;
+
+    private Path h2Directory;
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = jdbcUrl;
+        if (url.isEmpty()) {
+            h2Directory = Files.createTempDirectory("id-insert-benchmark");
+            url = "jdbc:h2:file:" + h2Directory.resolve("bench");
+        }
+        ids = "random".equals(generator) ? UUID::randomUUID : TimeOrderedUuidGenerator::next;
+
+        connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(false);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS id_insert_benchmark");
+            ddl.execute("CREATE TABLE id_insert_benchmark (id uuid PRIMARY KEY, reason varchar(255), created_date timestamp)");
+        }
+        connection.commit();
+        insert = connection.prepareStatement(
+                "INSERT INTO id_insert_benchmark (id, reason, created_date) VALUES (?, ?, ?)");
+        for (int loaded = 0; loaded < preloadRows; loaded += PRELOAD_BATCH_SIZE) {
+            insertBatch(Math.min(PRELOAD_BATCH_SIZE, preloadRows - loaded));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE id_insert_benchmark");
+        }
+        connection.commit();
+        connection.close();
+        if (h2Directory != null) {
+            try (Stream<Path> files = Files.walk(h2Directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        insertBatch(BATCH_SIZE);
+    }
+
+    private void insertBatch(int rows) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < rows; i++) {
+            insert.setObject(1, ids.get());
+            insert.setString(2, "Checkup");
+            insert.setTimestamp(3, now);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+}
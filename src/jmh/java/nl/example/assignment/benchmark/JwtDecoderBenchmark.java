@@ -0,0 +1,67 @@
+package nl.example.assignment.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.example.assignment.configuration.CachingJwtDecoder;
+import nl.example.assignment.configuration.SecurityConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Per-request cost of authenticating a bearer token the client has sent before: full RS256 verification and claim
+ * validation against a local JWK set versus a hit in {@link CachingJwtDecoder}.
+ */
+@State(Scope.Benchmark)
+public class JwtDecoderBenchmark {
+
+    private JwtDecoder verifying;
+    private JwtDecoder caching;
+    private String token;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        verifying = SecurityConfiguration.nimbusJwtDecoder(
+                new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK())), Set.of(JWSAlgorithm.RS256), new JwtTimestampValidator());
+        caching = new CachingJwtDecoder(verifying, 10_000, new SimpleMeterRegistry());
+
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("doctor-1")
+                .issuer("https://idp.example.nl")
+                .claim("scope", "appointments:read appointments:write")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("benchmark").build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        token = jwt.serialize();
+    }
+
+    @Benchmark
+    public Jwt verifyEveryRequest() {
+        return verifying.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cachedValidatedToken() {
+        return caching.decode(token);
+    }
+}
@@ -0,0 +1,58 @@
+package nl.example.assignment.benchmark;
+
+import nl.example.assignment.dto.AppointmentDto;
+import nl.example.assignment.dto.PatientDto;
+import nl.example.assignment.mapper.AppointmentMapper;
+import nl.example.assignment.mapper.PatientMapper;
+import nl.example.assignment.model.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Per-row cost of the entity-to-DTO mappers; one operation is one mapped row.
+ */
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        appointments = BenchmarkData.appointments(ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void appointmentToDto(Blackhole blackhole) {
+        for (Appointment appointment : appointments) {
+            AppointmentDto dto = AppointmentMapper.toDto(appointment);
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void appointmentToDtoWithPatient(Blackhole blackhole) {
+        for (Appointment appointment : appointments) {
+            AppointmentDto dto = AppointmentMapper.toDtoWithPatient(appointment, appointment.getPatient());
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void patientToDto(Blackhole blackhole) {
+        for (Appointment appointment : appointments) {
+            PatientDto dto = PatientMapper.toDto(appointment.getPatient());
+            blackhole.consume(dto);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package nl.example.assignment.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import nl.example.assignment.configuration.ObjectMapperConfig;
+import nl.example.assignment.dto.AppointmentDto;
+import nl.example.assignment.mapper.AppointmentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * JSON serialization of appointment lists with the application's {@link ObjectMapperConfig} customizer applied.
+ * One operation is one serialized list of {@code rows} elements.
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    private ObjectWriter writer;
+    private List<AppointmentDto> withoutPatient;
+    private List<AppointmentDto> withPatient;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new ObjectMapperConfig().jsonCustomizer().customize(builder);
+        ObjectMapper objectMapper = builder.build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, AppointmentDto.class));
+
+        withoutPatient = BenchmarkData.appointments(rows).stream().map(AppointmentMapper::toDto).toList();
+        withPatient = BenchmarkData.appointments(rows).stream()
+                .map(a -> AppointmentMapper.toDtoWithPatient(a, a.getPatient()))
+                .toList();
+    }
+
+    @Benchmark
+    public void serializeAppointments() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), withoutPatient);
+    }
+
+    @Benchmark
+    public void serializeAppointmentsWithPatient() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), withPatient);
+    }
+}
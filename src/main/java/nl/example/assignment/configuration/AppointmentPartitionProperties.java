@@ -0,0 +1,22 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Monthly partitioning of the appointment table on PostgreSQL, bound from {@code appointment.partitions.*}.
+ *
+ * <p>Partitions are created {@code monthsAhead} months in advance. Partitions that ended more than
+ * {@code retentionMonths} months ago are exported as gzip-compressed CSV into {@code archiveDirectory}
+ * and detached; with {@code dropArchived} the detached table is dropped as well.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.partitions")
+public record AppointmentPartitionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("3") int monthsAhead,
+        @DefaultValue("24") int retentionMonths,
+        @DefaultValue("archive") Path archiveDirectory,
+        @DefaultValue("false") boolean dropArchived) {
+}
@@ -0,0 +1,21 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Background removal of deleted appointments, bound from {@code appointment.purge.*}.
+ *
+ * <p>Runs every {@code interval} on the purger's own thread. Rows are deleted {@code batchSize} at a time, each
+ * batch in its own transaction and followed by {@code pause}. A run stops after {@code maxBatchesPerRun} batches so a
+ * long backlog does not keep connections busy for minutes; the next run continues with the remaining rows.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.purge")
+public record AppointmentPurgeProperties(
+        @DefaultValue("10s") Duration interval,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("50ms") Duration pause,
+        @DefaultValue("200") int maxBatchesPerRun) {
+}
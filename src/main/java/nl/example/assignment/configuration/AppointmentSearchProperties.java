@@ -0,0 +1,23 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Page size limits for appointment searches, bound from {@code appointment.search.*}.
+ */
+@ConfigurationProperties(prefix = "appointment.search")
+public record AppointmentSearchProperties(
+        @DefaultValue("100") int defaultPageSize,
+        @DefaultValue("1000") int maxPageSize) {
+
+    /**
+     * Resolves the page size for a request: the default when none is given, otherwise clamped to {@code [1, maxPageSize]}.
+     */
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        return Math.clamp(requested, 1, maxPageSize);
+    }
+}
@@ -0,0 +1,18 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * When appointment inserts switch from batched {@code INSERT}s to {@code COPY}, bound from {@code appointment.write.*}.
+ * {@code COPY} is only used on PostgreSQL, for inserts of at least {@code copyThreshold} rows.
+ *
+ * <p>{@code maxBatchAppointments} caps the appointments of one {@code POST /api/appointments/batch} request, which
+ * are held in memory and written in one transaction; larger sets belong in the streaming import.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.write")
+public record AppointmentWriteProperties(
+        @DefaultValue("true") boolean copyEnabled,
+        @DefaultValue("1000") int copyThreshold,
+        @DefaultValue("10000") int maxBatchAppointments) {
+}
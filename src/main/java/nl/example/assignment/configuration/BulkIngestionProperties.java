@@ -0,0 +1,23 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the asynchronous bulk ingestion queue, bound from {@code appointment.ingestion.*}.
+ *
+ * <p>{@code maxBatchAppointments} caps how many appointments one writer coalesces into a single transaction,
+ * and how many one job may hold, so the heap held by a full queue stays bounded at
+ * {@code queueCapacity * maxBatchAppointments} appointments. Finished jobs are kept for {@code jobRetention},
+ * at most {@code maximumJobs} of them.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.ingestion")
+public record BulkIngestionProperties(
+        @DefaultValue("1000") int queueCapacity,
+        @DefaultValue("2") int writers,
+        @DefaultValue("5000") int maxBatchAppointments,
+        @DefaultValue("15m") Duration jobRetention,
+        @DefaultValue("100000") long maximumJobs) {
+}
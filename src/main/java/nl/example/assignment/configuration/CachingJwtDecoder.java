@@ -0,0 +1,91 @@
+package nl.example.assignment.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * {@link JwtDecoder} that remembers tokens its delegate has already verified and validated.
+ *
+ * <p>A client sends the same bearer token with every request until it expires, so repeating the signature check
+ * and claim validation each time buys nothing. Entries are keyed by the SHA-256 of the token, bounded by
+ * {@code maximumSize} and expire at the token's {@code exp}; tokens without an expiry are not cached. Failures are
+ * never cached, and concurrent requests with a token that is not cached yet wait for a single verification.</p>
+ *
+ * <p>A cached token stays accepted until it expires even if its signing key is rotated out of the JWK set
+ * in the meantime, which is the usual trade-off of stateless bearer tokens.</p>
+ *
+ * <p>Hit, miss and eviction counts are published as {@code cache.*} meters tagged {@code cache=validatedJwt}.</p>
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    static final String CACHE_NAME = "validatedJwt";
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        return cache.get(sha256(token), key -> delegate.decode(token));
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, Jwt> {
+
+        // keeps far-future expiries from overflowing a nanosecond duration
+        private static final Duration MAXIMUM_LIFETIME = Duration.ofDays(365);
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) {
+                return 0;
+            }
+            Duration remaining = Duration.between(Instant.now(), expiresAt);
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return remaining.compareTo(MAXIMUM_LIFETIME) > 0 ? MAXIMUM_LIFETIME.toNanos() : remaining.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
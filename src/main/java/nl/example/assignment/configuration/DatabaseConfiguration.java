@@ -0,0 +1,18 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes which database the application runs against, for the few statements that need vendor-specific SQL.
+ */
+@Configuration
+public class DatabaseConfiguration {
+
+    @Bean
+    public DatabaseDriver databaseDriver(DataSourceProperties dataSourceProperties) {
+        return DatabaseDriver.fromJdbcUrl(dataSourceProperties.determineUrl());
+    }
+}
@@ -0,0 +1,26 @@
+package nl.example.assignment.configuration;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Feeds {@link RequestJdbcActivity} from every Hibernate session.
+ *
+ * <p>Registered through {@code hibernate.session.events.auto}, which makes Hibernate create one instance per session.</p>
+ */
+public class JdbcActivitySessionListener implements SessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestJdbcActivity.statementExecuted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestJdbcActivity.batchExecuted();
+    }
+
+    @Override
+    public void flushStart() {
+        RequestJdbcActivity.flushed();
+    }
+}
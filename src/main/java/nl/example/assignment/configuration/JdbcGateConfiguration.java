@@ -0,0 +1,48 @@
+package nl.example.assignment.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Puts a {@link JdbcGateDataSource} in front of the application's connection pool when
+ * {@code appointment.jdbc-gate.enabled} is set, which it is by default in virtual-thread mode.
+ *
+ * <p>Only physical Hikari pools are gated, each at its own {@code maximum-pool-size}. Proxies in front of them,
+ * such as {@link ReadWriteRoutingDataSource}, are left alone: they hand out connection handles that may never
+ * reach a pool, and gating them would share one permit count between pools. This runs before the replica routing,
+ * which gates the replica pool it creates itself.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "appointment.jdbc-gate.enabled", havingValue = "true")
+@Slf4j
+public class JdbcGateConfiguration {
+
+    @Bean
+    public static BeanPostProcessor jdbcGateBeanPostProcessor(ObjectProvider<JdbcGateProperties> properties) {
+        return new JdbcGateBeanPostProcessor(properties);
+    }
+
+    record JdbcGateBeanPostProcessor(ObjectProvider<JdbcGateProperties> properties)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource pool) {
+                log.info("Gating datasource '{}' at {} concurrent connections", beanName, pool.getMaximumPoolSize());
+                return JdbcGateDataSource.forPool(pool, properties.getObject().acquireTimeout());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
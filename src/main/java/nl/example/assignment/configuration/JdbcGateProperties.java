@@ -0,0 +1,16 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link JdbcGateDataSource}, bound from {@code appointment.jdbc-gate.*}. Each gate admits as many
+ * callers as its pool has connections.
+ */
+@ConfigurationProperties(prefix = "appointment.jdbc-gate")
+public record JdbcGateProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("30s") Duration acquireTimeout) {
+}
@@ -0,0 +1,23 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Caching of validated tokens and of the JWK set in the {@code prod} security chain, bound from
+ * {@code appointment.security.jwt.*}.
+ *
+ * <p>The JWK set is kept for {@code jwkSetTimeToLive} and fetched again in the background
+ * {@code jwkSetRefreshAhead} before it expires; a foreground fetch waits at most {@code jwkSetRefreshTimeout}.
+ * {@code jwkSetRefreshAhead + jwkSetRefreshTimeout} must stay below {@code jwkSetTimeToLive}, which in turn must be
+ * longer than the 30 second minimum interval between JWK set fetches.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.security.jwt")
+public record JwtCacheProperties(
+        @DefaultValue("10000") long maximumCachedTokens,
+        @DefaultValue("5m") Duration jwkSetTimeToLive,
+        @DefaultValue("30s") Duration jwkSetRefreshAhead,
+        @DefaultValue("15s") Duration jwkSetRefreshTimeout) {
+}
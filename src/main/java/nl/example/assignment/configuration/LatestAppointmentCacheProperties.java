@@ -0,0 +1,15 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the latest-appointment cache, bound from {@code appointment.cache.latest-appointment.*}.
+ */
+@ConfigurationProperties(prefix = "appointment.cache.latest-appointment")
+public record LatestAppointmentCacheProperties(
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("5m") Duration expireAfterWrite) {
+}
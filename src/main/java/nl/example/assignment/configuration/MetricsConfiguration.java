@@ -0,0 +1,72 @@
+package nl.example.assignment.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Records how much JDBC work each appointment request caused.
+ *
+ * <p>Endpoint latency ({@code http.server.requests}), repository latency
+ * ({@code spring.data.repository.invocations}) and Hibernate statistics ({@code hibernate.*}) come from
+ * Spring Boot's auto-configuration; this adds the per-request view, as distribution summaries tagged with
+ * the request's method and URI template:</p>
+ * <ul>
+ *   <li>{@code appointment.request.jdbc.statements} – statements executed individually</li>
+ *   <li>{@code appointment.request.jdbc.batches} – JDBC batches executed</li>
+ *   <li>{@code appointment.request.flushes} – persistence context flushes</li>
+ * </ul>
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestJdbcActivityInterceptor()).addPathPatterns("/api/**");
+    }
+
+    private class RequestJdbcActivityInterceptor implements HandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            RequestJdbcActivity.start();
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                    Object handler, Exception ex) {
+            RequestJdbcActivity activity = RequestJdbcActivity.stop();
+            if (activity == null) {
+                return;
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            record("appointment.request.jdbc.statements", "JDBC statements executed per request",
+                    request.getMethod(), uri, activity.statements());
+            record("appointment.request.jdbc.batches", "JDBC batches executed per request",
+                    request.getMethod(), uri, activity.batches());
+            record("appointment.request.flushes", "Persistence context flushes per request",
+                    request.getMethod(), uri, activity.flushes());
+        }
+
+        private void record(String name, String description, String method, String uri, long value) {
+            DistributionSummary.builder(name)
+                    .description(description)
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(value);
+        }
+    }
+}
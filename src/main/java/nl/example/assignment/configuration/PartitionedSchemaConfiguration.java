@@ -0,0 +1,101 @@
+package nl.example.assignment.configuration;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Creates the partitioned appointment table on PostgreSQL before the JPA schema update runs.
+ *
+ * <p>Spring Boot orders the entity manager factory after any {@link DataSourceScriptDatabaseInitializer},
+ * so the partitioned table is already in place when Hibernate starts. Hibernate's schema update cannot see
+ * the indexes and foreign keys of a partitioned table and would try to recreate them on every start, so
+ * the table is excluded from it. On other databases, or with {@code appointment.partitions.enabled=false},
+ * neither applies and the table stays a single Hibernate-managed table.</p>
+ */
+@Configuration
+public class PartitionedSchemaConfiguration {
+
+    static final String SCHEMA_LOCATION = "classpath:db/postgresql/appointment-partitioned.sql";
+    static final String PARTITIONED_TABLE = "appointment";
+
+    @Bean
+    public DataSourceScriptDatabaseInitializer partitionedSchemaInitializer(DataSource dataSource,
+                                                                            DatabaseDriver databaseDriver,
+                                                                            AppointmentPartitionProperties properties) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of(SCHEMA_LOCATION));
+        // the script is a single DO block whose body contains semicolons
+        settings.setSeparator("@@");
+        settings.setMode(properties.enabled() && databaseDriver == DatabaseDriver.POSTGRESQL
+                ? DatabaseInitializationMode.ALWAYS
+                : DatabaseInitializationMode.NEVER);
+        return new DataSourceScriptDatabaseInitializer(dataSource, settings);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer partitionedTableSchemaFilter(DatabaseDriver databaseDriver,
+                                                                      AppointmentPartitionProperties properties) {
+        return hibernateProperties -> {
+            if (properties.enabled() && databaseDriver == DatabaseDriver.POSTGRESQL) {
+                hibernateProperties.put(AvailableSettings.HBM2DDL_FILTER_PROVIDER, new ExcludePartitionedTable());
+            }
+        };
+    }
+
+    private static final class ExcludePartitionedTable implements SchemaFilterProvider, SchemaFilter {
+
+        @Override
+        public boolean includeNamespace(Namespace namespace) {
+            return true;
+        }
+
+        @Override
+        public boolean includeTable(Table table) {
+            return !PARTITIONED_TABLE.equalsIgnoreCase(table.getName());
+        }
+
+        @Override
+        public boolean includeSequence(Sequence sequence) {
+            return true;
+        }
+
+        @Override
+        public SchemaFilter getCreateFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getDropFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getTruncatorFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getMigrateFilter() {
+            return this;
+        }
+
+        @Override
+        public SchemaFilter getValidateFilter() {
+            return SchemaFilter.ALL;
+        }
+    }
+}
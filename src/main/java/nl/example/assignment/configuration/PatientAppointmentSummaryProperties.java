@@ -0,0 +1,16 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Repair of the per-patient appointment count and latest-appointment pointer, bound from
+ * {@code appointment.patient-summary.*}.
+ *
+ * <p>Patients are recomputed {@code repairBatchSize} at a time, each batch in its own transaction. The full sweep
+ * runs on {@code appointment.patient-summary.repair-cron}.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.patient-summary")
+public record PatientAppointmentSummaryProperties(
+        @DefaultValue("500") int repairBatchSize) {
+}
@@ -0,0 +1,15 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the patient id cache, bound from {@code appointment.cache.patient-id.*}.
+ */
+@ConfigurationProperties(prefix = "appointment.cache.patient-id")
+public record PatientIdCacheProperties(
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("1h") Duration expireAfterAccess) {
+}
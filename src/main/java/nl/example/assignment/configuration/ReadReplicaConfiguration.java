@@ -0,0 +1,70 @@
+package nl.example.assignment.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to a replica when {@code appointment.datasource.replica.url} is set.
+ *
+ * <p>The replica pool is configured like {@code spring.datasource.*} under {@code appointment.datasource.replica.*},
+ * with pool settings under {@code appointment.datasource.replica.hikari.*}. It is not a bean of its own, so
+ * the auto-configured primary pool stays in place and is wrapped in a {@link ReadWriteRoutingDataSource}.
+ * This runs after the JDBC gate has wrapped the primary pool; with the gate enabled the replica pool gets a gate of
+ * its own, sized to the replica pool.</p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "appointment.datasource.replica", name = "url")
+@Slf4j
+public class ReadReplicaConfiguration {
+
+    static final String REPLICA_PREFIX = "appointment.datasource.replica";
+
+    @Bean
+    public static BeanPostProcessor readReplicaBeanPostProcessor(Environment environment) {
+        return new ReadReplicaBeanPostProcessor(environment);
+    }
+
+    private static DataSource replicaDataSource(Environment environment) {
+        Binder binder = Binder.get(environment);
+        DataSourceProperties properties = binder.bind(REPLICA_PREFIX, DataSourceProperties.class)
+                .orElseGet(DataSourceProperties::new);
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        replica.setPoolName("replica");
+        binder.bind(REPLICA_PREFIX + ".hikari", Bindable.ofInstance(replica));
+        JdbcGateProperties gate = binder.bind("appointment.jdbc-gate", JdbcGateProperties.class).orElse(null);
+        if (gate != null && gate.enabled()) {
+            log.info("Gating the replica datasource at {} concurrent connections", replica.getMaximumPoolSize());
+            return JdbcGateDataSource.forPool(replica, gate.acquireTimeout());
+        }
+        return replica;
+    }
+
+    private record ReadReplicaBeanPostProcessor(Environment environment) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource primary && !(bean instanceof ReadWriteRoutingDataSource)) {
+                log.info("Routing read-only transactions of datasource '{}' to the replica", beanName);
+                return new ReadWriteRoutingDataSource(primary, replicaDataSource(environment));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            // after the JDBC gate, so the gate sees the primary pool itself
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * How long reads for a patient stay on the primary after a write to that patient, bound from
+ * {@code appointment.datasource.read-your-writes.*}. Only used when a read replica is configured;
+ * a zero {@code window} turns it off.
+ */
+@ConfigurationProperties(prefix = "appointment.datasource.read-your-writes")
+public record ReadYourWritesProperties(
+        @DefaultValue("2s") Duration window,
+        @DefaultValue("100000") long maximumSize) {
+}
@@ -0,0 +1,18 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the in-process reason dictionary, bound from {@code appointment.cache.reason.*}.
+ *
+ * <p>At most {@code maximumSize} reasons are held in each direction; a text that is not in the table is remembered
+ * as missing for {@code missingDuration}.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.cache.reason")
+public record ReasonDictionaryProperties(
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("5s") Duration missingDuration) {
+}
@@ -0,0 +1,62 @@
+package nl.example.assignment.configuration;
+
+/**
+ * JDBC work done by Hibernate on behalf of the HTTP request bound to the current thread.
+ *
+ * <p>Counting is only active between {@link #start()} and {@link #stop()}; Hibernate sessions used
+ * outside a request, such as background jobs, leave no trace.</p>
+ */
+public final class RequestJdbcActivity {
+
+    private static final ThreadLocal<RequestJdbcActivity> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long batches;
+    private long flushes;
+
+    private RequestJdbcActivity() {
+    }
+
+    static void start() {
+        CURRENT.set(new RequestJdbcActivity());
+    }
+
+    static RequestJdbcActivity stop() {
+        RequestJdbcActivity activity = CURRENT.get();
+        CURRENT.remove();
+        return activity;
+    }
+
+    static void statementExecuted() {
+        RequestJdbcActivity activity = CURRENT.get();
+        if (activity != null) {
+            activity.statements++;
+        }
+    }
+
+    static void batchExecuted() {
+        RequestJdbcActivity activity = CURRENT.get();
+        if (activity != null) {
+            activity.batches++;
+        }
+    }
+
+    static void flushed() {
+        RequestJdbcActivity activity = CURRENT.get();
+        if (activity != null) {
+            activity.flushes++;
+        }
+    }
+
+    long statements() {
+        return statements;
+    }
+
+    long batches() {
+        return batches;
+    }
+
+    long flushes() {
+        return flushes;
+    }
+}
@@ -1,14 +1,50 @@
 package nl.example.assignment.configuration;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JWT resource server for the {@code prod} profile.
+ *
+ * <p>Tokens are verified against the JWK set at {@code spring.security.oauth2.resourceserver.jwt.jwk-set-uri},
+ * which is cached locally and refreshed in the background before it expires ({@code appointment.security.jwt.*}),
+ * so no request waits for a key fetch while the identity provider is reachable. Verified tokens are remembered
+ * by {@link CachingJwtDecoder} until they expire; only the first request with a token pays for the signature
+ * check. {@code issuer-uri} and {@code audiences}, when set, are validated as well.</p>
+ *
+ * <p>Actuator endpoints need a token too, except {@code /actuator/health} for load balancers and probes.</p>
+ */
 @Configuration
 @EnableWebSecurity
 @Profile("prod")
@@ -20,6 +56,8 @@ public class SecurityConfiguration {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/appointments/**").authenticated()
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -30,6 +68,64 @@ public class SecurityConfiguration {
         return http.build();
     }
 
+    /**
+     * Closed by the container on shutdown, which stops the background refresh.
+     */
+    @Bean
+    public JWKSource<SecurityContext> jwkSource(OAuth2ResourceServerProperties resourceServer,
+                                                JwtCacheProperties properties) throws MalformedURLException {
+        String jwkSetUri = resourceServer.getJwt().getJwkSetUri();
+        if (jwkSetUri == null || jwkSetUri.isBlank()) {
+            throw new IllegalStateException("spring.security.oauth2.resourceserver.jwt.jwk-set-uri must be set in the prod profile");
+        }
+        return JWKSourceBuilder.<SecurityContext>create(URI.create(jwkSetUri).toURL())
+                .cache(properties.jwkSetTimeToLive().toMillis(), properties.jwkSetRefreshTimeout().toMillis())
+                .refreshAheadCache(properties.jwkSetRefreshAhead().toMillis(), true)
+                .build();
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource,
+                                 OAuth2ResourceServerProperties resourceServer,
+                                 JwtCacheProperties properties,
+                                 MeterRegistry meterRegistry) {
+        OAuth2ResourceServerProperties.Jwt jwt = resourceServer.getJwt();
+        Set<JWSAlgorithm> algorithms = jwt.getJwsAlgorithms().stream()
+                .map(JWSAlgorithm::parse)
+                .collect(Collectors.toSet());
+        NimbusJwtDecoder verifier = nimbusJwtDecoder(jwkSource, algorithms,
+                tokenValidator(jwt.getIssuerUri(), jwt.getAudiences()));
+        return new CachingJwtDecoder(verifier, properties.maximumCachedTokens(), meterRegistry);
+    }
+
+    /**
+     * Signature verification against {@code jwkSource}; claims are only checked by {@code validator}.
+     */
+    public static NimbusJwtDecoder nimbusJwtDecoder(JWKSource<SecurityContext> jwkSource,
+                                                    Set<JWSAlgorithm> algorithms,
+                                                    OAuth2TokenValidator<Jwt> validator) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, jwkSource));
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(validator);
+        return decoder;
+    }
+
+    static OAuth2TokenValidator<Jwt> tokenValidator(String issuer, List<String> audiences) {
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        validators.add(new JwtTimestampValidator());
+        if (issuer != null && !issuer.isBlank()) {
+            validators.add(new JwtIssuerValidator(issuer));
+        }
+        if (audiences != null && !audiences.isEmpty()) {
+            validators.add(new JwtClaimValidator<List<String>>(JwtClaimNames.AUD,
+                    audience -> audience != null && !Collections.disjoint(audience, audiences)));
+        }
+        return new DelegatingOAuth2TokenValidator<>(validators);
+    }
+
     private JwtAuthenticationConverter jwtAuthenticationConverter() {
         return new JwtAuthenticationConverter();
     }
@@ -0,0 +1,18 @@
+package nl.example.assignment.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Appointment usage statistics, bound from {@code appointment.statistics.*}.
+ *
+ * <p>{@code maximumKeys} caps the number of (day, reason) counters held between flushes; further reasons
+ * of a day are counted under {@code (other)}. {@code maximumRangeDays} caps the days one read may span.
+ * The flush interval is {@code appointment.statistics.flush-interval}.</p>
+ */
+@ConfigurationProperties(prefix = "appointment.statistics")
+public record UsageStatisticsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int maximumKeys,
+        @DefaultValue("366") int maximumRangeDays) {
+}
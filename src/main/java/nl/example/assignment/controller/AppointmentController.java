@@ -1,25 +1,62 @@
 package nl.example.assignment.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
+import nl.example.assignment.configuration.AppointmentSearchProperties;
+import nl.example.assignment.configuration.AppointmentWriteProperties;
+import nl.example.assignment.configuration.BulkIngestionProperties;
+import nl.example.assignment.configuration.UsageStatisticsProperties;
+import nl.example.assignment.dto.AppointmentCursor;
+import nl.example.assignment.dto.AppointmentPage;
+import nl.example.assignment.dto.BatchCreateAppointmentsRequestBody;
+import nl.example.assignment.dto.BatchCreateSummary;
 import nl.example.assignment.dto.CreateAppointmentRequestBody;
+import nl.example.assignment.dto.ImportSummary;
+import nl.example.assignment.dto.IngestionJobStatus;
+import nl.example.assignment.dto.LatestAppointmentsRequestBody;
+import nl.example.assignment.dto.LatestAppointmentsSummary;
+import nl.example.assignment.dto.UsageStatisticDto;
+import nl.example.assignment.service.AppointmentImportService;
 import nl.example.assignment.service.AppointmentService;
+import nl.example.assignment.service.AppointmentUsageStatistics;
+import nl.example.assignment.service.BulkIngestionService;
 import nl.example.assignment.dto.AppointmentDto;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
 
 /**
  * REST controller for managing Appointment resources.
@@ -34,10 +71,53 @@ import java.util.Map;
  *       Request body: {@link CreateAppointmentRequestBody}<br>
  *       Response: List of created {@link AppointmentDto}</li>
  *
- *   <li><strong>GET /api/appointments?reason={reason}</strong><br>
- *       Finds all appointments matching the given reason.<br>
- *       Query param: <em>reason</em> (must not be blank; trimmed automatically)<br>
- *       Response: List of {@link AppointmentDto}</li>
+ *   <li><strong>POST /api/appointments/bulk/async</strong><br>
+ *       Queues a bulk create and returns before it is written.<br>
+ *       Request body: {@link CreateAppointmentRequestBody}, at most
+ *       <code>appointment.ingestion.max-batch-appointments</code> appointments<br>
+ *       Response: <code>202</code> with an {@link IngestionJobStatus} and a <code>Location</code> header
+ *       pointing at the job; <code>400</code> when the request holds more appointments; <code>429</code> with
+ *       <code>Retry-After</code> while the queue is full</li>
+ *
+ *   <li><strong>GET /api/appointments/jobs/{jobId}</strong><br>
+ *       Reports the state of a queued bulk create.<br>
+ *       Response: {@link IngestionJobStatus}, or <code>404</code> for unknown or expired jobs</li>
+ *
+ *   <li><strong>POST /api/appointments/batch</strong><br>
+ *       Creates appointments for many patients in one call.<br>
+ *       Request body: {@link BatchCreateAppointmentsRequestBody}, at most
+ *       <code>appointment.write.max-batch-appointments</code> appointments<br>
+ *       Response: {@link BatchCreateSummary} with patient and appointment counts; <code>400</code> when the
+ *       request holds more appointments</li>
+ *
+ *   <li><strong>POST /api/appointments/import</strong><br>
+ *       Streams appointments for any number of patients, one JSON object per line.<br>
+ *       Request body: <code>application/x-ndjson</code> of {@link nl.example.assignment.dto.ImportAppointmentLine}<br>
+ *       Response: {@link ImportSummary} with counts and failed line numbers</li>
+ *
+ *   <li><strong>GET /api/appointments?reason={reason}&amp;cursor={cursor}&amp;size={size}</strong><br>
+ *       Finds one page of appointments matching the given reason, ordered by date and id.<br>
+ *       Query params: <em>reason</em> (must not be blank; trimmed automatically),
+ *       optional <em>cursor</em> from a previous page and <em>size</em> (capped)<br>
+ *       Response: List of {@link AppointmentDto}; an <code>X-Next-Cursor</code> header is
+ *       present while more pages follow</li>
+ *
+ *   <li><strong>GET /api/appointments/search?q={query}&amp;limit={limit}</strong><br>
+ *       Full-text search for appointments whose reason contains the words of the query.<br>
+ *       Query params: <em>q</em> (must not be blank; web search syntax on PostgreSQL),
+ *       optional <em>limit</em> (capped)<br>
+ *       Response: List of {@link AppointmentDto}, most relevant first</li>
+ *
+ *   <li><strong>GET /api/appointments/stream?reason={reason}</strong><br>
+ *       Streams every appointment matching the given reason as it is read from the database.<br>
+ *       Response: <code>application/x-ndjson</code>, one {@link AppointmentDto} per line</li>
+ *
+ *   <li><strong>GET /api/appointments/export?format={csv|ndjson}&amp;ssn={ssn}&amp;from={from}&amp;to={to}</strong><br>
+ *       Streams every appointment of a patient and/or date range with its patient, in date order for one patient.<br>
+ *       Query params: <em>format</em> (<code>ndjson</code> by default), optional <em>ssn</em> and
+ *       ISO date-times <em>from</em> (inclusive) and <em>to</em> (exclusive)<br>
+ *       Response: <code>text/csv</code> with a header row, or <code>application/x-ndjson</code>,
+ *       one {@link AppointmentDto} per line, as an attachment</li>
  *
  *   <li><strong>DELETE /api/appointments?ssn={ssn}</strong><br>
  *       Deletes all appointments for the patient identified by SSN.<br>
@@ -50,6 +130,32 @@ import java.util.Map;
  *       Retrieves the most recent appointment for the given patient SSN.<br>
  *       Query param: <em>ssn</em> (must not be blank; trimmed automatically)<br>
  *       Response: Single {@link AppointmentDto}</li>
+ *
+ *   <li><strong>GET /api/appointments/count?ssn={ssn}</strong><br>
+ *       Counts the appointments of the given patient.<br>
+ *       Query param: <em>ssn</em> (must not be blank; trimmed automatically)<br>
+ *       Response: JSON map containing:<br>
+ *       &nbsp;&nbsp;•<code>appointmentCount</code>– number of appointments<br>
+ *       &nbsp;&nbsp;•<code>ssn</code>– normalized SSN string</li>
+ *
+ *   <li><strong>POST /api/appointments/latest/batch</strong><br>
+ *       Retrieves the most recent appointment of many patients at once.<br>
+ *       Request body: {@link LatestAppointmentsRequestBody} with at most
+ *       <code>appointment.search.max-page-size</code> SSNs<br>
+ *       Response: {@link LatestAppointmentsSummary}; unknown SSNs and patients without appointments
+ *       are listed instead of failing the request</li>
+ *
+ *   <li><strong>GET /api/appointments/range?ssn={ssn}&amp;from={from}&amp;to={to}&amp;limit={limit}</strong><br>
+ *       Retrieves the newest appointments of a patient with <em>from</em> &le; date &lt; <em>to</em>.<br>
+ *       Query params: <em>ssn</em>, ISO date-times <em>from</em> and <em>to</em>, optional <em>limit</em> (capped)<br>
+ *       Response: List of {@link AppointmentDto}, newest first</li>
+ *
+ *   <li><strong>GET /api/appointments/statistics?from={from}&amp;to={to}</strong><br>
+ *       Retrieves per-day, per-reason counts of created and deleted appointments with
+ *       <em>from</em> &le; day &lt; <em>to</em>.<br>
+ *       Query params: ISO dates <em>from</em> and <em>to</em>, at most
+ *       <code>appointment.statistics.maximum-range-days</code> apart<br>
+ *       Response: List of {@link UsageStatisticDto}; counts lag writes by up to one flush interval</li>
  * </ul>
  *
  * <h2>Security & Validation</h2>
@@ -74,7 +180,18 @@ import java.util.Map;
 @Validated
 public class AppointmentController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String INGESTION_RETRY_AFTER_SECONDS = "1";
+
     private final AppointmentService appointmentService;
+    private final AppointmentImportService appointmentImportService;
+    private final BulkIngestionService bulkIngestionService;
+    private final AppointmentUsageStatistics usageStatistics;
+    private final UsageStatisticsProperties usageStatisticsProperties;
+    private final AppointmentSearchProperties searchProperties;
+    private final AppointmentWriteProperties writeProperties;
+    private final BulkIngestionProperties ingestionProperties;
+    private final ObjectMapper objectMapper;
 
     @PreAuthorize("hasRole('DOCTOR')")
     @PostMapping("/bulk")
@@ -84,21 +201,153 @@ public class AppointmentController {
         return ResponseEntity.ok(created);
     }
 
+    @PreAuthorize("hasRole('DOCTOR')")
+    @PostMapping("/bulk/async")
+    public ResponseEntity<IngestionJobStatus> createBulkAsync(
+            @RequestBody @Valid CreateAppointmentRequestBody request) {
+        if (request.getAppointmentDetails().size() > ingestionProperties.maxBatchAppointments()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + ingestionProperties.maxBatchAppointments() + " appointments per queued job; use /import for more");
+        }
+        Optional<IngestionJobStatus> job = bulkIngestionService.submit(request);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, INGESTION_RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/appointments/jobs/{jobId}")
+                .buildAndExpand(job.get().getJobId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job.get());
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<IngestionJobStatus> getJob(@PathVariable UUID jobId) {
+        IngestionJobStatus job = bulkIngestionService.status(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + jobId));
+        return ResponseEntity.ok(job);
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateSummary> createBatch(
+            @RequestBody @Valid BatchCreateAppointmentsRequestBody request) {
+        long appointments = request.getPatients().stream()
+                .mapToLong(patient -> patient.getAppointmentDetails().size())
+                .sum();
+        if (appointments > writeProperties.maxBatchAppointments()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + writeProperties.maxBatchAppointments() + " appointments per batch; use /import for more");
+        }
+        BatchCreateSummary summary = appointmentService.createBatchAppointments(request);
+        return ResponseEntity.ok(summary);
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportSummary> importNdjson(InputStream body) throws IOException {
+        ImportSummary summary = appointmentImportService.importNdjson(body);
+        return ResponseEntity.ok(summary);
+    }
+
     @PreAuthorize("hasRole('DOCTOR')")
     @GetMapping
     public ResponseEntity<List<AppointmentDto>> getByReason(
-            @RequestParam @NotBlank(message = "Reason must not be blank") String reason) {
-        List<AppointmentDto> found = appointmentService.findAppointmentsByReason(reason.trim());
-        return ResponseEntity.ok(found);
+            @RequestParam @NotBlank(message = "Reason must not be blank") String reason,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        AppointmentPage page = appointmentService.findAppointmentsByReason(reason.trim(), decodeCursor(cursor), size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping("/search")
+    public ResponseEntity<List<AppointmentDto>> search(
+            @RequestParam @NotBlank(message = "Query must not be blank") String q,
+            @RequestParam(required = false) Integer limit) {
+        List<AppointmentDto> appointments = appointmentService.searchAppointments(q.trim(), limit);
+        return ResponseEntity.ok(appointments);
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamByReason(
+            @RequestParam @NotBlank(message = "Reason must not be blank") String reason,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (SequenceWriter writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(response.getOutputStream())) {
+            appointmentService.streamAppointmentsByReason(reason.trim(), dto -> {
+                try {
+                    writer.write(dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String ssn,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) throws IOException {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        String patientSsn = ssn == null || ssn.isBlank() ? null : ssn.trim();
+        switch (format) {
+            case "csv" -> {
+                response.setContentType("text/csv;charset=UTF-8");
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"appointments.csv\"");
+                try (AppointmentCsvWriter writer = new AppointmentCsvWriter(response.getOutputStream())) {
+                    appointmentService.exportAppointments(patientSsn, from, to, dto -> {
+                        try {
+                            writer.write(dto);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+            case "ndjson" -> {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"appointments.ndjson\"");
+                // flushing after every row would send one chunk per appointment
+                try (SequenceWriter writer = objectMapper.writer()
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .withRootValueSeparator("\n")
+                        .writeValues(response.getOutputStream())) {
+                    appointmentService.exportAppointments(patientSsn, from, to, dto -> {
+                        try {
+                            writer.write(dto);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported format '" + format + "'");
+        }
     }
 
     @PreAuthorize("hasRole('DOCTOR')")
     @DeleteMapping
     public ResponseEntity<Map<String, Object>> deleteBySsn(
             @RequestParam @NotBlank(message = "SSN must not be blank") String ssn) {
-        long deletedCount = appointmentService.deleteAppointmentsForPatient(ssn.trim());
+        OptionalLong deletedCount = appointmentService.deleteAppointmentsForPatient(ssn.trim());
         Map<String, Object> response = new HashMap<>();
-        response.put("deletedCount", deletedCount);
+        deletedCount.ifPresent(count -> response.put("deletedCount", count));
         response.put("ssn", ssn.trim());
         return ResponseEntity.ok(response);
     }
@@ -110,4 +359,73 @@ public class AppointmentController {
         AppointmentDto latest = appointmentService.getLatestAppointmentForPatient(ssn.trim());
         return ResponseEntity.ok(latest);
     }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> countBySsn(
+            @RequestParam @NotBlank(message = "SSN must not be blank") String ssn) {
+        long appointmentCount = appointmentService.countAppointmentsForPatient(ssn.trim());
+        Map<String, Object> response = new HashMap<>();
+        response.put("appointmentCount", appointmentCount);
+        response.put("ssn", ssn.trim());
+        return ResponseEntity.ok(response);
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @PostMapping("/latest/batch")
+    public ResponseEntity<LatestAppointmentsSummary> getLatestBatch(
+            @RequestBody @Valid LatestAppointmentsRequestBody request) {
+        List<String> ssns = request.getSsns() == null ? List.of() : request.getSsns().stream()
+                .filter(ssn -> ssn != null && !ssn.isBlank())
+                .map(String::trim)
+                .toList();
+        if (ssns.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "SSN list must not be empty");
+        }
+        if (ssns.size() > searchProperties.maxPageSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + searchProperties.maxPageSize() + " SSNs per request");
+        }
+        return ResponseEntity.ok(appointmentService.getLatestAppointmentsForPatients(ssns));
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping("/range")
+    public ResponseEntity<List<AppointmentDto>> getInRange(
+            @RequestParam @NotBlank(message = "SSN must not be blank") String ssn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        List<AppointmentDto> appointments = appointmentService.findAppointmentsInRange(ssn.trim(), from, to, limit);
+        return ResponseEntity.ok(appointments);
+    }
+
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping("/statistics")
+    public ResponseEntity<List<UsageStatisticDto>> getStatistics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > usageStatisticsProperties.maximumRangeDays()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range must not exceed " + usageStatisticsProperties.maximumRangeDays() + " days");
+        }
+        return ResponseEntity.ok(usageStatistics.findStatistics(from, to));
+    }
+
+    private static AppointmentCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return AppointmentCursor.decode(cursor.trim());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
 }
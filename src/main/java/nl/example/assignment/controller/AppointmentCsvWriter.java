@@ -0,0 +1,63 @@
+package nl.example.assignment.controller;
+
+import nl.example.assignment.dto.AppointmentDto;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes appointments as RFC 4180 CSV with a header row, one buffered line at a time.
+ *
+ * <p>Fields containing a comma, quote or line break are quoted, with quotes doubled. Dates use the same
+ * {@code yyyy-MM-dd'T'HH:mm:ss} format as the JSON responses.</p>
+ */
+class AppointmentCsvWriter implements Closeable {
+
+    static final String HEADER = "id,reason,date,patientName,patientSsn";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final Writer writer;
+
+    AppointmentCsvWriter(OutputStream output) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    void write(AppointmentDto appointment) throws IOException {
+        field(appointment.getId());
+        writer.write(',');
+        field(appointment.getReason());
+        writer.write(',');
+        field(appointment.getDate() == null ? null : DATE_FORMAT.format(appointment.getDate()));
+        writer.write(',');
+        field(appointment.getPatient() == null ? null : appointment.getPatient().getName());
+        writer.write(',');
+        field(appointment.getPatient() == null ? null : appointment.getPatient().getSsn());
+        writer.write("\r\n");
+    }
+
+    private void field(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
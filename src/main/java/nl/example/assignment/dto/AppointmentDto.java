@@ -1,12 +1,16 @@
 package nl.example.assignment.dto;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Builder
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
 @Getter
 @Setter
 public class AppointmentDto {
@@ -15,4 +19,18 @@ public class AppointmentDto {
     private String reason;
     private LocalDateTime date;
     private PatientDto patient;
+
+    /**
+     * Projection constructor for JPQL {@code SELECT new} queries that skip the patient.
+     */
+    public AppointmentDto(UUID id, String reason, LocalDateTime date) {
+        this(id.toString(), reason, date, null);
+    }
+
+    /**
+     * Projection constructor for JPQL {@code SELECT new} queries that select the patient's columns alongside.
+     */
+    public AppointmentDto(UUID id, String reason, LocalDateTime date, String patientName, String patientSsn) {
+        this(id.toString(), reason, date, new PatientDto(patientName, patientSsn));
+    }
 }
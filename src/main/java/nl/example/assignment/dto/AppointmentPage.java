@@ -0,0 +1,17 @@
+package nl.example.assignment.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One keyset page of appointments; {@code nextCursor} is {@code null} on the last page.
+ */
+@Builder
+@Getter
+public class AppointmentPage {
+
+    private List<AppointmentDto> items;
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package nl.example.assignment.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Appointments for many patients in one call, one {@link CreateAppointmentRequestBody} per patient.
+ */
+@RequiredArgsConstructor
+@Getter
+@Setter
+public class BatchCreateAppointmentsRequestBody {
+
+    @NotEmpty(message = "Patients list must not be empty")
+    @Valid
+    private List<CreateAppointmentRequestBody> patients;
+}
@@ -0,0 +1,17 @@
+package nl.example.assignment.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Outcome of a multi-patient batch create.
+ *
+ * <p>{@code patientCount} counts distinct SSNs; entries repeating an SSN are merged into one patient.</p>
+ */
+@Builder
+@Getter
+public class BatchCreateSummary {
+
+    private int patientCount;
+    private int appointmentCount;
+}
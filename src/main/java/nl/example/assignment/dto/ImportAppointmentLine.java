@@ -0,0 +1,34 @@
+package nl.example.assignment.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single NDJSON record of the streaming appointment import.
+ *
+ * <p>Unlike {@link CreateAppointmentRequestBody} every line carries its own patient,
+ * so one import stream may span any number of patients.</p>
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImportAppointmentLine {
+
+    private String patientName;
+    private String ssn;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime date;
+    private String reason;
+
+    public boolean isComplete() {
+        return hasText(patientName) && hasText(ssn) && hasText(reason) && date != null;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
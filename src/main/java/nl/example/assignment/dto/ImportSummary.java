@@ -0,0 +1,23 @@
+package nl.example.assignment.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Compact outcome of a streaming import.
+ *
+ * <p>{@code failedLines} holds 1-based line numbers of the input and is capped;
+ * {@code failedLinesTruncated} tells whether more lines failed than are listed.</p>
+ */
+@Builder
+@Getter
+public class ImportSummary {
+
+    private long receivedCount;
+    private long importedCount;
+    private long failedCount;
+    private List<Long> failedLines;
+    private boolean failedLinesTruncated;
+}
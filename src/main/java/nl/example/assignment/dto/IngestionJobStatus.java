@@ -0,0 +1,29 @@
+package nl.example.assignment.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of an asynchronous bulk create.
+ *
+ * <p>{@code state} moves from {@code QUEUED} to {@code RUNNING} and ends in {@code COMPLETED} or {@code FAILED};
+ * {@code error} is only set for failed jobs.</p>
+ */
+@Builder
+@Getter
+public class IngestionJobStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private UUID jobId;
+    private State state;
+    private int appointmentCount;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package nl.example.assignment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * SSNs whose latest appointment is requested in one call.
+ */
+@RequiredArgsConstructor
+@Getter
+@Setter
+public class LatestAppointmentsRequestBody {
+
+    @NotEmpty(message = "SSN list must not be empty")
+    private List<String> ssns;
+}
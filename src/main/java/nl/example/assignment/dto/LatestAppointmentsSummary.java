@@ -0,0 +1,23 @@
+package nl.example.assignment.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a multi-patient latest-appointment lookup.
+ *
+ * <p>{@code latest} maps each SSN that has appointments to its most recent one, in request order.
+ * SSNs of unknown patients and of patients without appointments are listed separately instead of
+ * failing the batch.</p>
+ */
+@Builder
+@Getter
+public class LatestAppointmentsSummary {
+
+    private Map<String, AppointmentDto> latest;
+    private List<String> unknownSsns;
+    private List<String> ssnsWithoutAppointments;
+}
@@ -1,10 +1,12 @@
 package nl.example.assignment.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
 @Builder
+@AllArgsConstructor
 @Getter
 @Setter
 public class PatientDto {
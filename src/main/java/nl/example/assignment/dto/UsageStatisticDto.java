@@ -0,0 +1,19 @@
+package nl.example.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Appointments created and deleted on one day with one normalized reason.
+ */
+@AllArgsConstructor
+@Getter
+public class UsageStatisticDto {
+
+    private LocalDate date;
+    private String reason;
+    private long createdCount;
+    private long deletedCount;
+}
@@ -1,20 +1,24 @@
 package nl.example.assignment.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -41,20 +45,49 @@ import java.util.UUID;
  *   <li><strong>Entity equality:</strong> Overrode {@code equals} and {@code hashCode}
  *       based solely on the {@code id} field to ensure consistent behavior in
  *       collections and Hibernate contexts.</li>
+ *   <li><strong>Normalized reason:</strong> Added the indexed {@code reasonNormalized} column,
+ *       kept in sync by {@link #setReason(String)}, so case-insensitive reason lookups are
+ *       an index equality match instead of a {@code LOWER(...) LIKE} table scan. The index
+ *       continues on {@code (date, id)} so keyset pages are read in index order.</li>
+ *   <li><strong>Patient history index:</strong> Added {@code idx_appointment_patient_date} on
+ *       {@code (patient_id, date DESC)} so the latest appointment and date-range lookups for a patient
+ *       read the first rows of one index range instead of sorting the patient's whole history.</li>
+ *   <li><strong>Time-ordered ids:</strong> Replaced the random {@code @GeneratedValue} UUID with
+ *       {@link TimeOrderedUuid} (UUIDv7), keeping large {@code saveAll} batches on the right-most
+ *       primary-key leaf pages.</li>
+ *   <li><strong>Reason dictionary:</strong> {@code reason} and {@code reasonNormalized} are stored as integer ids
+ *       into {@link AppointmentReason} through {@link ReasonConverter} instead of repeating the text on every
+ *       row, so rows and the reason index are narrower and reason lookups compare integers. The entity keeps
+ *       the texts, so queries and callers are unchanged.</li>
+ *   <li><strong>Patient generation:</strong> Added {@code generation}, the patient's appointment generation when the
+ *       row was written. Reads only return rows of the patient's current generation, so a delete hides all of a
+ *       patient's rows by incrementing one number and the rows themselves are purged later in small batches.</li>
  * </ul>
  */
 @Entity
-@Table(name = "appointment")
+@Table(
+        name = "appointment",
+        indexes = {
+                @Index(name = "idx_appointment_reason_key_date_id", columnList = "reason_normalized_id, date, id"),
+                @Index(name = "idx_appointment_patient_date", columnList = "patient_id, date DESC")
+        }
+)
 @Setter
 @Getter
 @NoArgsConstructor
 public class Appointment {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     @Column(columnDefinition = "uuid", updatable = false, nullable = false)
     private UUID id;
+    @Convert(converter = ReasonConverter.class)
+    @Column(name = "reason_id")
     private String reason;
+    @Setter(AccessLevel.NONE)
+    @Convert(converter = ReasonConverter.class)
+    @Column(name = "reason_normalized_id")
+    private String reasonNormalized;
     private LocalDateTime date;
     @CreationTimestamp
     @Column(name = "created_date", nullable = false, updatable = false)
@@ -65,13 +98,28 @@ public class Appointment {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id")
     private Patient patient;
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int generation;
 
     public Appointment(String reason, LocalDateTime date, Patient patient) {
-        this.reason = reason;
+        setReason(reason);
         this.date = date;
         this.patient = patient;
     }
 
+    public void setReason(String reason) {
+        this.reason = reason;
+        this.reasonNormalized = normalizeReason(reason);
+    }
+
+    /**
+     * Canonical form used for reason lookups: trimmed and lower-cased independent of the default locale.
+     */
+    public static String normalizeReason(String reason) {
+        return reason == null ? null : reason.trim().toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
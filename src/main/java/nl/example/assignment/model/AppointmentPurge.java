@@ -0,0 +1,35 @@
+package nl.example.assignment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A patient whose appointments of generations before {@code generation} are hidden and still have to be deleted.
+ *
+ * <p>Written when a patient's appointments are deleted and removed by {@code AppointmentPurger} once none of those
+ * rows is left. Rows are written with JDBC, not through this entity, which only exists so Hibernate creates the
+ * table.</p>
+ */
+@Entity
+@Table(name = "appointment_purge")
+@Getter
+@NoArgsConstructor
+public class AppointmentPurge {
+
+    @Id
+    @Column(name = "patient_id", columnDefinition = "uuid", nullable = false, updatable = false)
+    private UUID patientId;
+
+    @Column(nullable = false)
+    private int generation;
+
+    @Column(name = "requested_date", nullable = false)
+    private LocalDateTime requestedDate;
+}
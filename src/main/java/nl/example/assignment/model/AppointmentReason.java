@@ -0,0 +1,32 @@
+package nl.example.assignment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One distinct reason text, referenced from {@link Appointment} by its small integer id.
+ *
+ * <p>Rows are only ever inserted, never updated or deleted, so an id always resolves to the same text and can be
+ * cached without invalidation. Exact and normalized reasons share the table: {@code "Checkup"} and
+ * {@code "checkup"} are two entries. Rows are written by {@code ReasonDictionary}, not through this entity, which
+ * only exists so Hibernate creates the table.</p>
+ */
+@Entity
+@Table(name = "appointment_reason")
+@Getter
+@NoArgsConstructor
+public class AppointmentReason {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true, updatable = false)
+    private String reason;
+}
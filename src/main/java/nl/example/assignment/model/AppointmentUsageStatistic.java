@@ -0,0 +1,48 @@
+package nl.example.assignment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Number of appointments created and deleted per day and normalized reason.
+ *
+ * <p>Rows are only ever incremented, by {@code AppointmentUsageStatisticRepository#addCounts} with a
+ * database-side upsert, so concurrent flushes from several instances add up instead of overwriting
+ * each other. The day is the day of the write, not the appointment date.</p>
+ */
+@Entity
+@Table(name = "appointment_usage_statistic")
+@IdClass(AppointmentUsageStatistic.Key.class)
+@Getter
+@NoArgsConstructor
+public class AppointmentUsageStatistic {
+
+    @Id
+    @Column(name = "usage_date", nullable = false, updatable = false)
+    private LocalDate usageDate;
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    private String reason;
+
+    @Column(name = "created_count", nullable = false)
+    private long createdCount;
+
+    @Column(name = "deleted_count", nullable = false)
+    private long deletedCount;
+
+    @Column(name = "modified_date", nullable = false)
+    private LocalDateTime modifiedDate;
+
+    public record Key(LocalDate usageDate, String reason) implements Serializable {
+    }
+}
@@ -3,13 +3,13 @@ package nl.example.assignment.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -39,6 +39,17 @@ import java.util.UUID;
  *       mapping to simplify the model and avoid potential lazy-loading pitfalls when not needed.</li>
  *   <li><strong>Entity equality:</strong> Retained {@code equals} and {@code hashCode} methods based on
  *       the immutable {@code ssn} field to maintain consistent behavior in collections.</li>
+ *   <li><strong>Time-ordered ids:</strong> Replaced the random {@code @GeneratedValue} UUID with
+ *       {@link TimeOrderedUuid} (UUIDv7) so inserts append to the primary-key index instead of
+ *       splitting random pages; the column stays {@code uuid}.</li>
+ *   <li><strong>Latest-appointment pointer:</strong> Added {@code latestAppointmentId}/{@code latestAppointmentDate}
+ *       (together the appointment's primary key on the partitioned table) and {@code appointmentCount}, maintained
+ *       by every appointment write so the latest lookup is one primary-key read instead of a sort over the
+ *       patient's appointments. A {@code null} count marks a row that still has to be computed by
+ *       {@code PatientAppointmentSummaryRepair}; the pointer is only trusted when the count is set.</li>
+ *   <li><strong>Appointment generation:</strong> Added {@code appointmentGeneration}. Only appointments stamped with
+ *       the patient's current generation are visible; deleting a patient's appointments increments it, which hides
+ *       them at once, and {@code AppointmentPurger} removes the older generations in the background.</li>
  * </ul>
  */
 @Entity
@@ -52,7 +63,7 @@ import java.util.UUID;
 public class Patient {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     @Column(columnDefinition = "uuid", updatable = false, nullable = false)
     private UUID id;
 
@@ -70,6 +81,19 @@ public class Patient {
     @Column(name = "modified_date", nullable = false)
     private LocalDateTime modifiedDate;
 
+    @Column(name = "latest_appointment_id", columnDefinition = "uuid")
+    private UUID latestAppointmentId;
+
+    @Column(name = "latest_appointment_date")
+    private LocalDateTime latestAppointmentDate;
+
+    @Column(name = "appointment_count")
+    private Long appointmentCount = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "appointment_generation", nullable = false)
+    private Integer appointmentGeneration = 0;
+
     public Patient(String name, String ssn) {
         this.name = name;
         this.ssn = ssn;
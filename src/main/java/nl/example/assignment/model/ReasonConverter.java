@@ -0,0 +1,32 @@
+package nl.example.assignment.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import nl.example.assignment.repository.ReasonDictionary;
+
+/**
+ * Stores a reason text as its {@code appointment_reason} id and reads it back as the dictionary's shared instance.
+ *
+ * <p>Created by Hibernate through Spring, which injects the dictionary. Because the conversion is part of the
+ * attribute mapping, JPQL comparisons against a reason bind the integer id and projections of a reason return
+ * the cached text, without joining the dictionary table.</p>
+ */
+@Converter
+public class ReasonConverter implements AttributeConverter<String, Integer> {
+
+    private final ReasonDictionary reasonDictionary;
+
+    public ReasonConverter(ReasonDictionary reasonDictionary) {
+        this.reasonDictionary = reasonDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String reason) {
+        return reason == null ? null : reasonDictionary.require(reason);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id == null ? null : reasonDictionary.reason(id);
+    }
+}
@@ -0,0 +1,30 @@
+package nl.example.assignment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A one-off data migration that has completed, so it is not attempted again on the next start.
+ *
+ * <p>Rows are written with JDBC by the migrations themselves; this entity only exists so Hibernate creates the
+ * table.</p>
+ */
+@Entity
+@Table(name = "schema_migration")
+@Getter
+@NoArgsConstructor
+public class SchemaMigration {
+
+    @Id
+    @Column(length = 100, nullable = false, updatable = false)
+    private String name;
+
+    @Column(name = "completed_date", nullable = false, updatable = false)
+    private LocalDateTime completedDate;
+}
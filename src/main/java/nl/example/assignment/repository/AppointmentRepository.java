@@ -1,29 +1,110 @@
 package nl.example.assignment.repository;
 
+import jakarta.persistence.QueryHint;
+import nl.example.assignment.dto.AppointmentDto;
 import nl.example.assignment.model.Appointment;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
 
     @Query("""
-      SELECT a 
-        FROM Appointment a 
-        JOIN FETCH a.patient 
-       WHERE LOWER(a.reason) LIKE LOWER(CONCAT('%', :reason, '%'))
+      SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date, p.name, p.ssn)
+        FROM Appointment a
+        JOIN a.patient p
+       WHERE a.reasonNormalized = :reasonNormalized
+         AND a.generation = p.appointmentGeneration
+       ORDER BY a.date, a.id
     """)
-    List<Appointment> findByReasonWithPatient(@Param("reason") String reason);
+    List<AppointmentDto> findByReasonWithPatient(@Param("reasonNormalized") String reasonNormalized, Limit limit);
 
-    @Modifying(clearAutomatically = true)
-    @Query("DELETE FROM Appointment a WHERE a.patient.ssn = :ssn")
-    int deleteByPatientSsn(@Param("ssn") String ssn);
+    @Query("""
+      SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date, p.name, p.ssn)
+        FROM Appointment a
+        JOIN a.patient p
+       WHERE a.reasonNormalized = :reasonNormalized
+         AND a.generation = p.appointmentGeneration
+         AND (a.date > :date OR (a.date = :date AND a.id > :id))
+       ORDER BY a.date, a.id
+    """)
+    List<AppointmentDto> findByReasonWithPatientAfter(@Param("reasonNormalized") String reasonNormalized,
+                                                      @Param("date") LocalDateTime date,
+                                                      @Param("id") UUID id,
+                                                      Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+      SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date, p.name, p.ssn)
+        FROM Appointment a
+        JOIN a.patient p
+       WHERE a.reasonNormalized = :reasonNormalized
+         AND a.generation = p.appointmentGeneration
+       ORDER BY a.date, a.id
+    """)
+    Stream<AppointmentDto> streamByReasonWithPatient(@Param("reasonNormalized") String reasonNormalized);
 
-    Optional<Appointment> findTopByPatient_SsnOrderByDateDesc(String ssn);
+    @Query("""
+      SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date)
+        FROM Appointment a
+        JOIN a.patient p
+       WHERE p.ssn = :ssn
+         AND a.generation = p.appointmentGeneration
+       ORDER BY a.date DESC, a.id DESC
+    """)
+    Optional<AppointmentDto> findLatestByPatientSsn(@Param("ssn") String ssn, Limit limit);
+
+    /**
+     * Primary-key read of one appointment; {@code date} is part of the key of the partitioned table. Only used for
+     * latest-appointment pointers, which never point at a hidden appointment.
+     */
+    @Query("""
+      SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date)
+        FROM Appointment a
+       WHERE a.id = :id
+         AND a.date = :date
+    """)
+    Optional<AppointmentDto> findByIdAndDate(@Param("id") UUID id, @Param("date") LocalDateTime date);
+
+    /**
+     * Latest appointment of a patient through its pointer, in one statement. Empty when the pointer is not set or the
+     * summary still has to be computed; callers then fall back to {@link PatientRepository#findAppointmentSummaryBySsn}.
+     */
+    @Query("""
+      SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date)
+        FROM Patient p
+        JOIN Appointment a ON a.id = p.latestAppointmentId AND a.date = p.latestAppointmentDate
+       WHERE p.id = :patientId
+         AND p.appointmentCount IS NOT NULL
+    """)
+    Optional<AppointmentDto> findLatestByPatientPointer(@Param("patientId") UUID patientId);
+
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.patient.id = :patientId AND a.generation = :generation")
+    long countByPatientIdAndGeneration(@Param("patientId") UUID patientId, @Param("generation") int generation);
+
+    @Query("""
+      SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date)
+        FROM Appointment a
+        JOIN a.patient p
+       WHERE p.ssn = :ssn
+         AND a.generation = p.appointmentGeneration
+         AND a.date >= :from
+         AND a.date < :to
+       ORDER BY a.date DESC
+    """)
+    List<AppointmentDto> findByPatientSsnInRange(@Param("ssn") String ssn,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to,
+                                                 Limit limit);
 }
@@ -0,0 +1,54 @@
+package nl.example.assignment.repository;
+
+import nl.example.assignment.dto.AppointmentDto;
+import nl.example.assignment.model.Appointment;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Inserts new appointments with PostgreSQL's binary {@code COPY FROM STDIN}, bypassing the persistence context.
+     *
+     * <p>Ids and audit timestamps are assigned here. The appointments stay detached; only their
+     * patient's id is read, so patients may be uninitialized references.</p>
+     *
+     * @return the number of rows copied
+     * @throws UnsupportedOperationException when the database is not PostgreSQL
+     */
+    long copyInsert(Collection<Appointment> appointments);
+
+    /**
+     * Full-text search over appointment reasons.
+     *
+     * <p>On PostgreSQL the query uses web search syntax ({@code knee pain}, {@code "left knee"}, {@code -pain},
+     * {@code knee or hip}) against the GIN-indexed {@code reason_search} column of the reason dictionary and results
+     * are ranked by
+     * {@code ts_rank}, newest first among equal ranks. Elsewhere every word of the query must occur in the
+     * normalized reason and results are only ordered newest first.</p>
+     *
+     * @return at most {@code limit} matches with their patient
+     */
+    List<AppointmentDto> searchByReason(String query, int limit);
+
+    /**
+     * Streams appointments with their patient from a forward-only JDBC cursor, in {@code (date, id)} order for one
+     * patient and in storage order otherwise.
+     *
+     * <p>Every filter is optional: {@code ssn} limits the export to one patient, {@code from} (inclusive) and
+     * {@code to} (exclusive) to a date range. Rows are fetched 1000
+     * at a time and never enter the persistence context. Must be consumed, and closed, inside a transaction.</p>
+     */
+    Stream<AppointmentDto> streamForExport(String ssn, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * The most recent appointment of every existing patient among {@code ssns}, in one query.
+     *
+     * <p>Patients without appointments are returned with a {@code null} appointment; SSNs without a patient are
+     * left out. Ties on the date are broken by the higher id.</p>
+     */
+    List<PatientLatestAppointment> findLatestBySsnIn(Collection<String> ssns);
+}
@@ -0,0 +1,351 @@
+package nl.example.assignment.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import nl.example.assignment.dto.AppointmentDto;
+import nl.example.assignment.model.Appointment;
+import nl.example.assignment.model.TimeOrderedUuidGenerator;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.boot.jdbc.DatabaseDriver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Bulk appointment insert through PostgreSQL's binary {@code COPY} protocol.
+ *
+ * <p>Rows are encoded in the {@code FORMAT binary} layout (a signature header, then per row a field count
+ * followed by length-prefixed values, then a {@code -1} trailer) and streamed on the transaction's own
+ * connection, so the copy commits or rolls back together with the rest of the transaction. Binary avoids
+ * text escaping and parsing of uuid and timestamp values on both sides.</p>
+ *
+ * <p>Reasons are stored as {@code appointment_reason} ids: {@code COPY} writes the ids from {@link ReasonDictionary}
+ * and native queries read them back through it. Reason search matches the query against the normalized reasons of
+ * the dictionary, through the {@code reason_search} tsvector column maintained by
+ * {@code ReasonSearchIndexInitializer} on PostgreSQL or one {@code LIKE} per query word elsewhere. On PostgreSQL the
+ * best {@code limit} reasons are ranked first, then a {@code LATERAL} subquery reads the newest {@code limit}
+ * appointments of each from the {@code (reason_normalized_id, date, id)} index and the lists are merged, so a
+ * frequent reason costs {@code limit} index entries rather than all of its appointments.</p>
+ *
+ * <p>Every read joins the patient and only returns appointments of its current {@code appointment_generation}; older
+ * generations are hidden until {@code AppointmentPurger} deletes them. Latest-appointment pointers only ever point at
+ * current appointments, so following a pointer needs no such check.</p>
+ *
+ * <p>The multi-patient latest lookup follows each patient's latest-appointment pointer, one primary-key read per
+ * patient. Patients whose summary has not been computed yet fall back to a {@code LATERAL} top-1 subquery on
+ * PostgreSQL, which reads one entry of the {@code (patient_id, date DESC)} index, unlike {@code DISTINCT ON} over
+ * all of their appointments. Other databases number those patients' appointments with {@code ROW_NUMBER()}.</p>
+ */
+class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+
+    private static final String COPY_SQL = """
+            COPY appointment (id, reason_id, reason_normalized_id, date, created_date, modified_date, patient_id,
+                              generation)
+            FROM STDIN (FORMAT binary)
+            """;
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short FIELD_COUNT = 8;
+    private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String SEARCH_SQL = """
+            WITH matched AS (
+                    SELECT r.id, ts_rank(r.reason_search, q) AS rank
+                      FROM appointment_reason r, websearch_to_tsquery('simple', :query) q
+                     WHERE r.reason_search @@ q
+                     ORDER BY rank DESC, r.id
+                     LIMIT :limit)
+            SELECT t.id, t.reason_id, t.date, t.name, t.ssn
+              FROM matched m
+              CROSS JOIN LATERAL (
+                    SELECT a.id, a.reason_id, a.date, p.name, p.ssn
+                      FROM appointment a
+                      JOIN patient p ON p.id = a.patient_id AND p.appointment_generation = a.generation
+                     WHERE a.reason_normalized_id = m.id
+                     ORDER BY a.date DESC, a.id
+                     LIMIT :limit) t
+             ORDER BY m.rank DESC, t.date DESC, t.id
+             LIMIT :limit
+            """;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_FALLBACK_WORDS = 8;
+
+    static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String POSTGRESQL_LATEST_BY_SSN = """
+            SELECT p.ssn, l.id, l.reason_id, l.date
+              FROM patient p
+              LEFT JOIN LATERAL (
+                    (SELECT a.id, a.reason_id, a.date
+                       FROM appointment a
+                      WHERE p.appointment_count IS NOT NULL
+                        AND a.id = p.latest_appointment_id
+                        AND a.date = p.latest_appointment_date)
+                    UNION ALL
+                    (SELECT a.id, a.reason_id, a.date
+                       FROM appointment a
+                      WHERE p.appointment_count IS NULL
+                        AND a.patient_id = p.id
+                        AND a.generation = p.appointment_generation
+                      ORDER BY a.date DESC, a.id DESC
+                      LIMIT 1)
+                   ) l ON TRUE
+             WHERE p.ssn IN (:ssns)
+            """;
+
+    private static final String H2_LATEST_BY_SSN = """
+            SELECT ssn, id, reason_id, date
+              FROM (SELECT p.ssn, a.id, a.reason_id, a.date,
+                           ROW_NUMBER() OVER (PARTITION BY p.id ORDER BY a.date DESC, a.id DESC) AS position
+                      FROM patient p
+                      LEFT JOIN appointment a
+                        ON p.appointment_count IS NOT NULL
+                           AND a.id = p.latest_appointment_id AND a.date = p.latest_appointment_date
+                        OR p.appointment_count IS NULL AND a.patient_id = p.id
+                           AND a.generation = p.appointment_generation
+                     WHERE p.ssn IN (:ssns)) ranked
+             WHERE position = 1
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ReasonDictionary reasonDictionary;
+    private final boolean postgres;
+
+    AppointmentRepositoryCustomImpl(ReasonDictionary reasonDictionary, DatabaseDriver databaseDriver) {
+        this.reasonDictionary = reasonDictionary;
+        this.postgres = databaseDriver == DatabaseDriver.POSTGRESQL;
+    }
+
+    @Override
+    public long copyInsert(Collection<Appointment> appointments) {
+        if (!postgres) {
+            throw new UnsupportedOperationException("COPY is only available on PostgreSQL");
+        }
+        if (appointments.isEmpty()) {
+            return 0;
+        }
+        // resolved up front: the connection cannot run a dictionary lookup while the copy is in progress
+        Map<String, Integer> reasonIds = new HashMap<>();
+        for (Appointment appointment : appointments) {
+            for (String reason : new String[]{appointment.getReason(), appointment.getReasonNormalized()}) {
+                if (reason != null && !reasonIds.containsKey(reason)) {
+                    reasonIds.put(reason, reasonDictionary.require(reason));
+                }
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL, BUFFER_SIZE);
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(copy, BUFFER_SIZE));
+                out.write(SIGNATURE);
+                out.writeInt(0);
+                out.writeInt(0);
+                for (Appointment appointment : appointments) {
+                    if (appointment.getId() == null) {
+                        appointment.setId(TimeOrderedUuidGenerator.next());
+                    }
+                    appointment.setCreatedDate(now);
+                    appointment.setModifiedDate(now);
+                    writeRow(out, appointment, reasonIds);
+                }
+                out.writeShort(-1);
+                out.flush();
+                return copy.endCopy();
+            } catch (IOException e) {
+                copy.cancelCopy();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw e;
+            }
+        });
+    }
+
+    private static void writeRow(DataOutputStream out, Appointment appointment, Map<String, Integer> reasonIds)
+            throws IOException {
+        out.writeShort(FIELD_COUNT);
+        writeUuid(out, appointment.getId());
+        writeInt(out, reasonIds.get(appointment.getReason()));
+        writeInt(out, reasonIds.get(appointment.getReasonNormalized()));
+        writeTimestamp(out, appointment.getDate());
+        writeTimestamp(out, appointment.getCreatedDate());
+        writeTimestamp(out, appointment.getModifiedDate());
+        writeUuid(out, appointment.getPatient() == null ? null : appointment.getPatient().getId());
+        writeInt(out, appointment.getGeneration());
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4);
+        out.writeInt(value);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value));
+    }
+
+    @Override
+    public List<AppointmentDto> searchByReason(String query, int limit) {
+        return postgres ? searchByReasonPostgres(query, limit) : searchByReasonFallback(query, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AppointmentDto> searchByReasonPostgres(String query, int limit) {
+        List<Object[]> rows = entityManager.createNativeQuery(SEARCH_SQL)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("reason_id", Integer.class)
+                .addScalar("date", LocalDateTime.class)
+                .addScalar("name", String.class)
+                .addScalar("ssn", String.class)
+                .setParameter("query", query)
+                .setParameter("limit", limit)
+                .getResultList();
+        return toDtosWithPatient(rows);
+    }
+
+    private List<AppointmentDto> toDtosWithPatient(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new AppointmentDto((UUID) row[0], reasonDictionary.reason((Integer) row[1]),
+                        (LocalDateTime) row[2], (String) row[3], (String) row[4]))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AppointmentDto> searchByReasonFallback(String query, int limit) {
+        List<String> words = Arrays.stream(NON_WORD.split(query.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .limit(MAX_FALLBACK_WORDS)
+                .toList();
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder("""
+                SELECT a.id, a.reason_id, a.date, p.name, p.ssn
+                  FROM appointment a
+                  JOIN appointment_reason r ON r.id = a.reason_normalized_id
+                  JOIN patient p ON p.id = a.patient_id AND p.appointment_generation = a.generation
+                 WHERE 1 = 1
+                """);
+        for (int i = 0; i < words.size(); i++) {
+            sql.append(" AND r.reason LIKE :word").append(i);
+        }
+        sql.append(" ORDER BY a.date DESC, a.id LIMIT :limit");
+
+        NativeQuery<Object[]> search = entityManager.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("reason_id", Integer.class)
+                .addScalar("date", LocalDateTime.class)
+                .addScalar("name", String.class)
+                .addScalar("ssn", String.class)
+                .setParameter("limit", limit);
+        for (int i = 0; i < words.size(); i++) {
+            search.setParameter("word" + i, "%" + words.get(i) + "%");
+        }
+        return toDtosWithPatient(search.getResultList());
+    }
+
+    @Override
+    public Stream<AppointmentDto> streamForExport(String ssn, LocalDateTime from, LocalDateTime to) {
+        StringBuilder jpql = new StringBuilder("""
+                SELECT new nl.example.assignment.dto.AppointmentDto(a.id, a.reason, a.date, p.name, p.ssn)
+                  FROM Appointment a
+                  JOIN a.patient p
+                 WHERE a.generation = p.appointmentGeneration
+                """);
+        if (ssn != null) {
+            jpql.append(" AND p.ssn = :ssn");
+        }
+        if (from != null) {
+            jpql.append(" AND a.date >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND a.date < :to");
+        }
+        // only one patient's rows come off an index in date order, (patient_id, date DESC); across patients no index
+        // serves (date, id), so sorting would read every row of the range before the first one is written
+        if (ssn != null) {
+            jpql.append(" ORDER BY a.date, a.id");
+        }
+
+        TypedQuery<AppointmentDto> export = entityManager.createQuery(jpql.toString(), AppointmentDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (ssn != null) {
+            export.setParameter("ssn", ssn);
+        }
+        if (from != null) {
+            export.setParameter("from", from);
+        }
+        if (to != null) {
+            export.setParameter("to", to);
+        }
+        return export.getResultStream();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PatientLatestAppointment> findLatestBySsnIn(Collection<String> ssns) {
+        if (ssns.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> rows = entityManager.createNativeQuery(postgres ? POSTGRESQL_LATEST_BY_SSN : H2_LATEST_BY_SSN)
+                .unwrap(NativeQuery.class)
+                .addScalar("ssn", String.class)
+                .addScalar("id", UUID.class)
+                .addScalar("reason_id", Integer.class)
+                .addScalar("date", LocalDateTime.class)
+                .setParameterList("ssns", ssns)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new PatientLatestAppointment((String) row[0], row[1] == null
+                        ? null
+                        : new AppointmentDto((UUID) row[1], reasonDictionary.reason((Integer) row[2]),
+                                (LocalDateTime) row[3])))
+                .toList();
+    }
+}
@@ -0,0 +1,26 @@
+package nl.example.assignment.repository;
+
+import nl.example.assignment.dto.UsageStatisticDto;
+import nl.example.assignment.model.AppointmentUsageStatistic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AppointmentUsageStatisticRepository
+        extends JpaRepository<AppointmentUsageStatistic, AppointmentUsageStatistic.Key>,
+        AppointmentUsageStatisticRepositoryCustom {
+
+    @Query("""
+      SELECT new nl.example.assignment.dto.UsageStatisticDto(s.usageDate, s.reason, s.createdCount, s.deletedCount)
+        FROM AppointmentUsageStatistic s
+       WHERE s.usageDate >= :from
+         AND s.usageDate < :to
+       ORDER BY s.usageDate, s.reason
+    """)
+    List<UsageStatisticDto> findInRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,12 @@
+package nl.example.assignment.repository;
+
+import java.util.Collection;
+
+public interface AppointmentUsageStatisticRepositoryCustom {
+
+    /**
+     * Adds the deltas to their (day, reason) rows, creating missing rows, in JDBC batches on the
+     * transaction's connection.
+     */
+    void addCounts(Collection<UsageStatisticDelta> deltas);
+}
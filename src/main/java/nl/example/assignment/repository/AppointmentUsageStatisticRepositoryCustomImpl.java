@@ -0,0 +1,85 @@
+package nl.example.assignment.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.jdbc.DatabaseDriver;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Vendor-specific increment of usage statistic rows.
+ *
+ * <p>PostgreSQL uses {@code INSERT ... ON CONFLICT (usage_date, reason) DO UPDATE} adding the new counts to the
+ * stored ones; H2 runs the equivalent {@code MERGE}. The addition happens in the database, so flushes of
+ * several instances never overwrite each other's counts.</p>
+ */
+class AppointmentUsageStatisticRepositoryCustomImpl implements AppointmentUsageStatisticRepositoryCustom {
+
+    private static final String POSTGRESQL_ADD_COUNTS = """
+            INSERT INTO appointment_usage_statistic (usage_date, reason, created_count, deleted_count, modified_date)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (usage_date, reason) DO UPDATE
+               SET created_count = appointment_usage_statistic.created_count + EXCLUDED.created_count,
+                   deleted_count = appointment_usage_statistic.deleted_count + EXCLUDED.deleted_count,
+                   modified_date = EXCLUDED.modified_date
+            """;
+
+    private static final String H2_ADD_COUNTS = """
+            MERGE INTO appointment_usage_statistic t
+            USING (VALUES (CAST(? AS DATE), CAST(? AS VARCHAR), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS TIMESTAMP)))
+               AS s (usage_date, reason, created_count, deleted_count, modified_date)
+               ON t.usage_date = s.usage_date AND t.reason = s.reason
+             WHEN MATCHED THEN UPDATE
+                  SET t.created_count = t.created_count + s.created_count,
+                      t.deleted_count = t.deleted_count + s.deleted_count,
+                      t.modified_date = s.modified_date
+             WHEN NOT MATCHED THEN INSERT (usage_date, reason, created_count, deleted_count, modified_date)
+                  VALUES (s.usage_date, s.reason, s.created_count, s.deleted_count, s.modified_date)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final String addCountsSql;
+
+    AppointmentUsageStatisticRepositoryCustomImpl(DatabaseDriver databaseDriver) {
+        this.addCountsSql = databaseDriver == DatabaseDriver.POSTGRESQL ? POSTGRESQL_ADD_COUNTS : H2_ADD_COUNTS;
+    }
+
+    @Override
+    public void addCounts(Collection<UsageStatisticDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        int batchSize = Math.max(1, session.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getSessionFactoryOptions().getJdbcBatchSize());
+        session.doWork(connection -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement statement = connection.prepareStatement(addCountsSql)) {
+                int pending = 0;
+                for (UsageStatisticDelta delta : deltas) {
+                    statement.setDate(1, Date.valueOf(delta.usageDate()));
+                    statement.setString(2, delta.reason());
+                    statement.setLong(3, delta.created());
+                    statement.setLong(4, delta.deleted());
+                    statement.setTimestamp(5, now);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+}
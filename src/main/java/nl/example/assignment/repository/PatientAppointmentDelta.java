@@ -0,0 +1,10 @@
+package nl.example.assignment.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Appointments to add to one patient's summary: how many, and the newest of them by {@code (date, id)}.
+ */
+public record PatientAppointmentDelta(UUID patientId, long added, UUID latestId, LocalDateTime latestDate) {
+}
@@ -0,0 +1,19 @@
+package nl.example.assignment.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A patient's id with its maintained appointment count and latest-appointment pointer, and the generation of the
+ * appointments they cover.
+ *
+ * <p>A {@code null} count means the summary has not been computed yet; the pointer is meaningless then.</p>
+ */
+public record PatientAppointmentSummary(UUID id, Long appointmentCount,
+                                        UUID latestAppointmentId, LocalDateTime latestAppointmentDate,
+                                        Integer appointmentGeneration) {
+
+    public boolean isComputed() {
+        return appointmentCount != null;
+    }
+}
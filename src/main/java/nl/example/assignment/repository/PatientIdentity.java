@@ -0,0 +1,9 @@
+package nl.example.assignment.repository;
+
+import java.util.UUID;
+
+/**
+ * Id and SSN of a patient, selected without loading the entity.
+ */
+public record PatientIdentity(UUID id, String ssn) {
+}
@@ -0,0 +1,9 @@
+package nl.example.assignment.repository;
+
+import nl.example.assignment.dto.AppointmentDto;
+
+/**
+ * A patient's SSN with its most recent appointment, or {@code null} when the patient has none.
+ */
+public record PatientLatestAppointment(String ssn, AppointmentDto latest) {
+}
@@ -2,12 +2,59 @@ package nl.example.assignment.repository;
 
 import nl.example.assignment.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, UUID>, PatientRepositoryCustom {
 
     Optional<Patient> findBySsn(String ssn);
+
+    @Query("SELECT p.id FROM Patient p WHERE p.ssn = :ssn")
+    Optional<UUID> findIdBySsn(@Param("ssn") String ssn);
+
+    @Query("SELECT new nl.example.assignment.repository.PatientIdentity(p.id, p.ssn) FROM Patient p WHERE p.ssn IN :ssns")
+    List<PatientIdentity> findIdentitiesBySsnIn(@Param("ssns") Collection<String> ssns);
+
+    @Query("""
+      SELECT new nl.example.assignment.repository.PatientAppointmentSummary(
+             p.id, p.appointmentCount, p.latestAppointmentId, p.latestAppointmentDate, p.appointmentGeneration)
+        FROM Patient p
+       WHERE p.ssn = :ssn
+    """)
+    Optional<PatientAppointmentSummary> findAppointmentSummaryBySsn(@Param("ssn") String ssn);
+
+    @Query("""
+      SELECT new nl.example.assignment.repository.PatientAppointmentSummary(
+             p.id, p.appointmentCount, p.latestAppointmentId, p.latestAppointmentDate, p.appointmentGeneration)
+        FROM Patient p
+       WHERE p.id = :id
+    """)
+    Optional<PatientAppointmentSummary> findAppointmentSummaryById(@Param("id") UUID id);
+
+    /**
+     * Starts a new appointment generation for the patient, which hides all of its current appointments from reads and
+     * takes the patient's row lock. The hidden rows are removed later by {@code AppointmentPurger}.
+     */
+    @Modifying
+    @Query("UPDATE Patient p SET p.appointmentGeneration = p.appointmentGeneration + 1 WHERE p.id = :id")
+    int hideAppointments(@Param("id") UUID id);
+
+    /**
+     * Resets the patient's summary to "no appointments", after {@link #hideAppointments} took the row lock.
+     */
+    @Modifying
+    @Query("""
+      UPDATE Patient p
+         SET p.appointmentCount = 0, p.latestAppointmentId = NULL, p.latestAppointmentDate = NULL
+       WHERE p.id = :id
+    """)
+    int clearAppointmentSummary(@Param("id") UUID id);
 }
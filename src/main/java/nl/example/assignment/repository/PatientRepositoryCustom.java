@@ -0,0 +1,40 @@
+package nl.example.assignment.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+public interface PatientRepositoryCustom {
+
+    /**
+     * Inserts a patient or, if the SSN is already taken, keeps the existing row, in a single atomic statement.
+     *
+     * @return the id of the new or existing patient
+     */
+    UUID upsertBySsn(String name, String ssn);
+
+    /**
+     * Inserts every patient whose SSN does not exist yet, in JDBC batches; existing SSNs are left untouched.
+     *
+     * @param nameBySsn patient name keyed by SSN
+     * @return the number of patients inserted
+     */
+    int insertMissing(Map<String, String> nameBySsn);
+
+    /**
+     * Adds new appointments to the count and latest-appointment pointer of their patients, in JDBC batches.
+     *
+     * <p>The pointer only moves when the new appointment is later by {@code (date, id)} than the current one, so
+     * concurrent writers for a patient end up with the same result in any order. Counts that are still
+     * {@code NULL} stay {@code NULL} until they are repaired.</p>
+     */
+    void addAppointments(Collection<PatientAppointmentDelta> deltas);
+
+    /**
+     * Locks the given patient rows until the end of the transaction and returns their appointment generation.
+     *
+     * @param patientIds ids sorted the way the database sorts uuids, so concurrent callers lock in the same order
+     * @return appointment generation keyed by patient id
+     */
+    Map<UUID, Integer> lockAppointmentGenerations(Collection<UUID> patientIds);
+}
@@ -0,0 +1,235 @@
+package nl.example.assignment.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import nl.example.assignment.model.TimeOrderedUuidGenerator;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.boot.jdbc.DatabaseDriver;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Vendor-specific insert-or-get of patients keyed by the unique SSN.
+ *
+ * <p>PostgreSQL uses {@code INSERT ... ON CONFLICT (ssn) DO NOTHING RETURNING id} in a CTE, with a plain read of
+ * the existing row as the {@code UNION ALL} fallback, so an existing patient is neither locked nor rewritten and
+ * costs no WAL. The fallback reads the statement's snapshot, which misses a row committed by a concurrent insert the
+ * statement had to wait for, so that case runs the statement once more. H2 reads the id from the
+ * {@code FINAL TABLE} of an equivalent {@code MERGE}. Either way concurrent callers for a new SSN get the same row
+ * instead of a unique-constraint violation.</p>
+ *
+ * <p>{@link #insertMissing(Map)} is the set-based variant: it sends {@code ON CONFLICT DO NOTHING}
+ * (or {@code MERGE ... WHEN NOT MATCHED}) inserts in JDBC batches of {@code hibernate.jdbc.batch_size}
+ * on the transaction's connection and leaves reading the ids to the caller.</p>
+ *
+ * <p>New patients start with an appointment count of {@code 0}. {@link #addAppointments(Collection)} updates
+ * count and latest-appointment pointer in one statement per patient, comparing against the row's current values
+ * instead of values read earlier, so concurrent writers for the same patient cannot lose each other's update.</p>
+ *
+ * <p>{@link #lockAppointmentGenerations(Collection)} locks patient rows with {@code SELECT ... FOR UPDATE} in slices of
+ * {@value #IN_CLAUSE_SIZE} ids, each slice in id order, so callers passing ids sorted the way the database sorts them
+ * lock rows in one global order.</p>
+ */
+class PatientRepositoryCustomImpl implements PatientRepositoryCustom {
+
+    private static final String POSTGRESQL_UPSERT = """
+            WITH inserted AS (
+                    INSERT INTO patient (id, name, ssn, created_date, modified_date, appointment_count,
+                                         appointment_generation)
+                    VALUES (:id, :name, :ssn, :now, :now, 0, 0)
+                    ON CONFLICT (ssn) DO NOTHING
+                    RETURNING id)
+            SELECT id FROM inserted
+             UNION ALL
+            SELECT id FROM patient WHERE ssn = :ssn
+            """;
+
+    private static final String H2_UPSERT = """
+            SELECT id FROM FINAL TABLE (
+                MERGE INTO patient p
+                USING (VALUES (CAST(:id AS UUID), CAST(:name AS VARCHAR), CAST(:ssn AS VARCHAR), CAST(:now AS TIMESTAMP)))
+                   AS s (id, name, ssn, now)
+                   ON p.ssn = s.ssn
+                 WHEN MATCHED THEN UPDATE SET p.ssn = s.ssn
+                 WHEN NOT MATCHED THEN INSERT (id, name, ssn, created_date, modified_date, appointment_count,
+                                               appointment_generation)
+                      VALUES (s.id, s.name, s.ssn, s.now, s.now, 0, 0)
+            )
+            """;
+
+    private static final String POSTGRESQL_INSERT_MISSING = """
+            INSERT INTO patient (id, name, ssn, created_date, modified_date, appointment_count, appointment_generation)
+            VALUES (?, ?, ?, ?, ?, 0, 0)
+            ON CONFLICT (ssn) DO NOTHING
+            """;
+
+    private static final String H2_INSERT_MISSING = """
+            MERGE INTO patient p
+            USING (VALUES (CAST(? AS UUID), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)))
+               AS s (id, name, ssn, created_date, modified_date)
+               ON p.ssn = s.ssn
+             WHEN NOT MATCHED THEN INSERT (id, name, ssn, created_date, modified_date, appointment_count, appointment_generation)
+                  VALUES (s.id, s.name, s.ssn, s.created_date, s.modified_date, 0, 0)
+            """;
+
+    private static final String ADD_APPOINTMENTS = """
+            UPDATE patient
+               SET appointment_count = appointment_count + ?,
+                   latest_appointment_id = CASE
+                       WHEN latest_appointment_date IS NULL
+                         OR (latest_appointment_date, latest_appointment_id) < (CAST(? AS TIMESTAMP), CAST(? AS UUID))
+                       THEN CAST(? AS UUID) ELSE latest_appointment_id END,
+                   latest_appointment_date = CASE
+                       WHEN latest_appointment_date IS NULL
+                         OR (latest_appointment_date, latest_appointment_id) < (CAST(? AS TIMESTAMP), CAST(? AS UUID))
+                       THEN CAST(? AS TIMESTAMP) ELSE latest_appointment_date END
+             WHERE id = ?
+            """;
+
+    private static final String LOCK_APPOINTMENT_GENERATIONS = """
+            SELECT id, appointment_generation
+              FROM patient
+             WHERE id IN (:ids)
+             ORDER BY id
+               FOR UPDATE
+            """;
+
+    static final int IN_CLAUSE_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final String upsertSql;
+    private final String insertMissingSql;
+
+    PatientRepositoryCustomImpl(DatabaseDriver databaseDriver) {
+        boolean postgres = databaseDriver == DatabaseDriver.POSTGRESQL;
+        this.upsertSql = postgres ? POSTGRESQL_UPSERT : H2_UPSERT;
+        this.insertMissingSql = postgres ? POSTGRESQL_INSERT_MISSING : H2_INSERT_MISSING;
+    }
+
+    @Override
+    public UUID upsertBySsn(String name, String ssn) {
+        List<?> ids = upsert(name, ssn);
+        if (ids.isEmpty()) {
+            // a concurrent insert of the same SSN committed after this statement's snapshot was taken
+            ids = upsert(name, ssn);
+        }
+        return (UUID) ids.get(0);
+    }
+
+    private List<?> upsert(String name, String ssn) {
+        return entityManager.createNativeQuery(upsertSql, UUID.class)
+                .setParameter("id", TimeOrderedUuidGenerator.next())
+                .setParameter("name", name)
+                .setParameter("ssn", ssn)
+                .setParameter("now", LocalDateTime.now())
+                .getResultList();
+    }
+
+    @Override
+    public int insertMissing(Map<String, String> nameBySsn) {
+        if (nameBySsn.isEmpty()) {
+            return 0;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        int batchSize = batchSize(session);
+        return session.doReturningWork(connection -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int inserted = 0;
+            try (PreparedStatement statement = connection.prepareStatement(insertMissingSql)) {
+                int pending = 0;
+                for (Map.Entry<String, String> patient : nameBySsn.entrySet()) {
+                    statement.setObject(1, TimeOrderedUuidGenerator.next());
+                    statement.setString(2, patient.getValue());
+                    statement.setString(3, patient.getKey());
+                    statement.setTimestamp(4, now);
+                    statement.setTimestamp(5, now);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        inserted += insertedRows(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    inserted += insertedRows(statement.executeBatch());
+                }
+            }
+            return inserted;
+        });
+    }
+
+    @Override
+    public void addAppointments(Collection<PatientAppointmentDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        int batchSize = batchSize(session);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADD_APPOINTMENTS)) {
+                int pending = 0;
+                for (PatientAppointmentDelta delta : deltas) {
+                    Timestamp date = Timestamp.valueOf(delta.latestDate());
+                    statement.setLong(1, delta.added());
+                    statement.setTimestamp(2, date);
+                    statement.setObject(3, delta.latestId());
+                    statement.setObject(4, delta.latestId());
+                    statement.setTimestamp(5, date);
+                    statement.setObject(6, delta.latestId());
+                    statement.setTimestamp(7, date);
+                    statement.setObject(8, delta.patientId());
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Integer> lockAppointmentGenerations(Collection<UUID> patientIds) {
+        List<UUID> ids = List.copyOf(patientIds);
+        Map<UUID, Integer> generations = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+            List<Object[]> rows = entityManager.createNativeQuery(LOCK_APPOINTMENT_GENERATIONS)
+                    .unwrap(NativeQuery.class)
+                    .addScalar("id", UUID.class)
+                    .addScalar("appointment_generation", Integer.class)
+                    .setParameterList("ids", ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size())))
+                    .getResultList();
+            rows.forEach(row -> generations.put((UUID) row[0], (Integer) row[1]));
+        }
+        return generations;
+    }
+
+    private static int batchSize(Session session) {
+        return Math.max(1, session.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getSessionFactoryOptions().getJdbcBatchSize());
+    }
+
+    private static int insertedRows(int[] updateCounts) {
+        int inserted = 0;
+        for (int count : updateCounts) {
+            // drivers may report SUCCESS_NO_INFO (-2) for batched statements; count those as inserted
+            inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return inserted;
+    }
+}
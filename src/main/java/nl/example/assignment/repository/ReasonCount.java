@@ -0,0 +1,7 @@
+package nl.example.assignment.repository;
+
+/**
+ * Number of appointments with one normalized reason, as counted in a purge batch.
+ */
+public record ReasonCount(String reason, long count) {
+}
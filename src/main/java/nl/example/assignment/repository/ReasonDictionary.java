@@ -0,0 +1,209 @@
+package nl.example.assignment.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.ReasonDictionaryProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process dictionary of the {@code appointment_reason} table: reason text to id and back.
+ *
+ * <p>Entries never change once written, so both directions are filled on demand and never invalidated, only bounded
+ * by {@code appointment.cache.reason.maximum-size}; a miss reads that one row on the caller's connection. A text that
+ * is not in the table is remembered as missing for {@code missing-duration}, so repeated searches for an unknown
+ * reason do not each query the table. A cached text is handed out as one shared {@code String}, so appointments read
+ * with the same reason share it.</p>
+ *
+ * <p>{@link #intern(Collection)} inserts unknown reasons in the caller's transaction. Until that transaction
+ * commits their ids are only visible to it; they are published afterwards, so a rollback cannot leave ids in the
+ * cache that do not exist in the table.</p>
+ */
+@Component
+@Slf4j
+public class ReasonDictionary {
+
+    private static final String POSTGRESQL_INSERT = """
+            INSERT INTO appointment_reason (reason) VALUES (?)
+            ON CONFLICT (reason) DO NOTHING
+            """;
+
+    private static final String H2_INSERT = """
+            MERGE INTO appointment_reason r
+            USING (VALUES (CAST(? AS VARCHAR))) AS s (reason)
+               ON r.reason = s.reason
+             WHEN NOT MATCHED THEN INSERT (reason) VALUES (s.reason)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final String insertSql;
+    private final Cache<String, Integer> idByReason;
+    private final Cache<Integer, String> reasonById;
+    private final Cache<String, Boolean> missing;
+
+    public ReasonDictionary(JdbcTemplate jdbcTemplate,
+                            DatabaseDriver databaseDriver,
+                            ReasonDictionaryProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.insertSql = databaseDriver == DatabaseDriver.POSTGRESQL ? POSTGRESQL_INSERT : H2_INSERT;
+        this.idByReason = Caffeine.newBuilder().maximumSize(properties.maximumSize()).build();
+        this.reasonById = Caffeine.newBuilder().maximumSize(properties.maximumSize()).build();
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.missingDuration())
+                .build();
+    }
+
+    /**
+     * @return the id of {@code reason}, or {@code null} when it has never been written
+     */
+    public Integer find(String reason) {
+        Integer id = idByReason.getIfPresent(reason);
+        if (id != null) {
+            return id;
+        }
+        Pending pending = pending();
+        if (pending != null && (id = pending.idByReason.get(reason)) != null) {
+            return id;
+        }
+        if (missing.getIfPresent(reason) != null) {
+            return null;
+        }
+        List<Integer> stored = jdbcTemplate.queryForList(
+                "SELECT id FROM appointment_reason WHERE reason = ?", Integer.class, reason);
+        if (stored.isEmpty()) {
+            missing.put(reason, Boolean.TRUE);
+            return null;
+        }
+        publish(reason, stored.get(0));
+        return stored.get(0);
+    }
+
+    /**
+     * @return the id of {@code reason}
+     * @throws IllegalStateException when the reason has not been interned
+     */
+    public int require(String reason) {
+        Integer id = find(reason);
+        if (id == null) {
+            throw new IllegalStateException("Reason '" + reason + "' is not in the dictionary; intern it before writing");
+        }
+        return id;
+    }
+
+    /**
+     * @return the shared text of reason {@code id}
+     * @throws IllegalStateException when no such reason exists
+     */
+    public String reason(int id) {
+        String reason = reasonById.getIfPresent(id);
+        if (reason != null) {
+            return reason;
+        }
+        Pending pending = pending();
+        if (pending != null && (reason = pending.reasonById.get(id)) != null) {
+            return reason;
+        }
+        List<String> stored = jdbcTemplate.queryForList(
+                "SELECT reason FROM appointment_reason WHERE id = ?", String.class, id);
+        if (stored.isEmpty()) {
+            throw new IllegalStateException("Unknown reason id " + id);
+        }
+        return publish(stored.get(0), id);
+    }
+
+    /**
+     * Makes sure every given reason has an id, inserting the unknown ones in the current transaction.
+     */
+    public void intern(Collection<String> reasons) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String reason : reasons) {
+            if (reason != null && find(reason) == null) {
+                missing.add(reason);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Reasons can only be interned inside a transaction");
+        }
+
+        // sorted, so concurrent transactions interning overlapping reasons wait for each other instead of deadlocking
+        List<String> sorted = missing.stream().sorted().toList();
+        jdbcTemplate.batchUpdate(insertSql, sorted, sorted.size(), (statement, reason) -> statement.setString(1, reason));
+        Map<String, Integer> created = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, reason FROM appointment_reason WHERE reason IN (:reasons)",
+                Map.of("reasons", sorted),
+                row -> {
+                    created.put(row.getString("reason"), row.getInt("id"));
+                });
+        pendingOrBind().putAll(created);
+        log.debug("Interned {} new reasons", created.size());
+    }
+
+    private void publish(Map<String, Integer> entries) {
+        entries.forEach(this::publish);
+    }
+
+    private String publish(String reason, int id) {
+        // keep the instance already handed out, so every reader shares one String per reason
+        String shared = reasonById.get(id, key -> reason);
+        idByReason.asMap().putIfAbsent(shared, id);
+        missing.invalidate(shared);
+        return shared;
+    }
+
+    private Pending pending() {
+        return (Pending) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private Pending pendingOrBind() {
+        Pending pending = pending();
+        if (pending == null) {
+            pending = new Pending();
+            Pending bound = pending;
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ReasonDictionary.this);
+                    if (status == STATUS_COMMITTED) {
+                        publish(bound.idByReason);
+                    }
+                }
+            });
+        }
+        return pending;
+    }
+
+    /**
+     * Reasons inserted by the current transaction.
+     */
+    private static final class Pending {
+
+        private final Map<String, Integer> idByReason = new HashMap<>();
+        private final Map<Integer, String> reasonById = new HashMap<>();
+
+        void putAll(Map<String, Integer> entries) {
+            entries.forEach((reason, id) -> {
+                idByReason.put(reason, id);
+                reasonById.put(id, reason);
+            });
+        }
+    }
+}
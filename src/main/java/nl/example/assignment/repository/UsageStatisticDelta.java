@@ -0,0 +1,9 @@
+package nl.example.assignment.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Counts to add to one (day, reason) row of the usage statistics.
+ */
+public record UsageStatisticDelta(LocalDate usageDate, String reason, long created, long deleted) {
+}
@@ -0,0 +1,285 @@
+package nl.example.assignment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.dto.ImportAppointmentLine;
+import nl.example.assignment.dto.ImportSummary;
+import nl.example.assignment.model.Appointment;
+import nl.example.assignment.model.Patient;
+import nl.example.assignment.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Streaming import of appointments from newline-delimited JSON.
+ *
+ * <p>The input is read one line at a time and committed in chunks of
+ * {@code appointment.import.chunk-size} lines, each chunk in its own transaction.
+ * Only the current chunk is held in memory and the persistence context is cleared
+ * after every chunk, so heap use does not grow with the size of the payload.</p>
+ *
+ * <p>A line longer than {@code appointment.import.max-line-length} characters, or that
+ * cannot be parsed or misses a field, fails on its own; only the first characters of an
+ * over-long line are held. A chunk that fails to commit is retried line by line, so only
+ * the lines that fail again are lost. Either way the import carries on with the next line
+ * and the failure is reported by line number in the {@link ImportSummary}.</p>
+ *
+ * <p>The patients of a chunk are resolved together by {@link PatientResolver} and its appointments are
+ * inserted by {@link AppointmentWriter}, which uses {@code COPY} on PostgreSQL once a chunk reaches
+ * {@code appointment.write.copy-threshold} rows.</p>
+ */
+@Service
+@Slf4j
+public class AppointmentImportService {
+
+    private final PatientRepository patientRepository;
+    private final PatientResolver patientResolver;
+    private final AppointmentWriter appointmentWriter;
+    private final EntityManager entityManager;
+    private final LatestAppointmentCache latestAppointmentCache;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader lineReader;
+    private final int chunkSize;
+    private final int maxReportedFailures;
+    private final int maxLineLength;
+
+    public AppointmentImportService(PatientRepository patientRepository,
+                                    PatientResolver patientResolver,
+                                    AppointmentWriter appointmentWriter,
+                                    EntityManager entityManager,
+                                    LatestAppointmentCache latestAppointmentCache,
+                                    ReadYourWritesTracker readYourWritesTracker,
+                                    TransactionTemplate transactionTemplate,
+                                    ObjectMapper objectMapper,
+                                    @Value("${appointment.import.chunk-size:1000}") int chunkSize,
+                                    @Value("${appointment.import.max-reported-failures:1000}") int maxReportedFailures,
+                                    @Value("${appointment.import.max-line-length:16384}") int maxLineLength) {
+        this.patientRepository = patientRepository;
+        this.patientResolver = patientResolver;
+        this.appointmentWriter = appointmentWriter;
+        this.entityManager = entityManager;
+        this.latestAppointmentCache = latestAppointmentCache;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.transactionTemplate = transactionTemplate;
+        this.lineReader = objectMapper.readerFor(ImportAppointmentLine.class);
+        this.chunkSize = chunkSize;
+        this.maxReportedFailures = maxReportedFailures;
+        this.maxLineLength = maxLineLength;
+    }
+
+    public ImportSummary importNdjson(InputStream input) throws IOException {
+        ImportProgress progress = new ImportProgress(maxReportedFailures);
+        List<NumberedLine> chunk = new ArrayList<>(chunkSize);
+
+        BoundedLineReader reader = new BoundedLineReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxLineLength);
+        long lineNumber = 0;
+        String raw;
+        while ((raw = reader.readLine()) != null) {
+            lineNumber++;
+            if (raw.isBlank()) {
+                continue;
+            }
+            progress.received();
+            if (reader.lineTooLong()) {
+                log.debug("Rejecting import line {} longer than {} characters", lineNumber, maxLineLength);
+                progress.failed(lineNumber);
+                continue;
+            }
+            ImportAppointmentLine line = parse(raw, lineNumber);
+            if (line == null) {
+                progress.failed(lineNumber);
+                continue;
+            }
+            chunk.add(new NumberedLine(lineNumber, line));
+            if (chunk.size() >= chunkSize) {
+                commitChunk(chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            commitChunk(chunk, progress);
+        }
+
+        ImportSummary summary = progress.toSummary();
+        log.info("Imported {} of {} appointments, {} failed",
+                summary.getImportedCount(), summary.getReceivedCount(), summary.getFailedCount());
+        return summary;
+    }
+
+    private ImportAppointmentLine parse(String raw, long lineNumber) {
+        try {
+            ImportAppointmentLine line = lineReader.readValue(raw);
+            if (line != null && line.isComplete()) {
+                return line;
+            }
+            log.debug("Rejecting incomplete import line {}", lineNumber);
+        } catch (JsonProcessingException e) {
+            log.debug("Rejecting malformed import line {}: {}", lineNumber, e.getOriginalMessage());
+        }
+        return null;
+    }
+
+    private void commitChunk(List<NumberedLine> chunk, ImportProgress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveChunk(chunk));
+            progress.imported(chunk.size());
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                log.warn("Failed to import line {}", chunk.get(0).number(), e);
+                progress.failed(chunk.get(0).number());
+                return;
+            }
+            log.warn("Failed to commit import chunk of {} lines starting at line {}, retrying them one by one",
+                    chunk.size(), chunk.get(0).number(), e);
+            chunk.forEach(line -> commitChunk(List.of(line), progress));
+        }
+    }
+
+    private void saveChunk(List<NumberedLine> chunk) {
+        Map<String, String> nameBySsn = new LinkedHashMap<>();
+        chunk.forEach(numbered -> nameBySsn.putIfAbsent(numbered.line().getSsn(), numbered.line().getPatientName()));
+        Map<String, UUID> patientIds = patientResolver.resolve(nameBySsn);
+
+        List<Appointment> appointments = new ArrayList<>(chunk.size());
+        for (NumberedLine numbered : chunk) {
+            ImportAppointmentLine line = numbered.line();
+            Patient patient = patientRepository.getReferenceById(patientIds.get(line.getSsn()));
+            appointments.add(new Appointment(line.getReason(), line.getDate(), patient));
+        }
+        appointmentWriter.insert(appointments);
+        latestAppointmentCache.invalidateAll(nameBySsn.keySet());
+        readYourWritesTracker.recordWrites(nameBySsn.keySet());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private record NumberedLine(long number, ImportAppointmentLine line) {
+    }
+
+    /**
+     * Splits the input on {@code \n} like {@link java.io.BufferedReader#readLine()}, but keeps at most
+     * {@code maxLength} characters of a line and skips the rest, so one endless line cannot exhaust the heap.
+     */
+    private static final class BoundedLineReader {
+
+        private final Reader reader;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        private BoundedLineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return the next line without its terminator, or {@code null} at the end of the input
+         */
+        private String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(reader.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return read ? terminate() : null;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    return terminate();
+                }
+            }
+        }
+
+        /**
+         * @return whether the last line read was cut off at {@code maxLength} characters
+         */
+        private boolean lineTooLong() {
+            return tooLong;
+        }
+
+        private void append(int start, int end) {
+            int room = maxLength - line.length();
+            if (end - start > room) {
+                line.append(buffer, start, room);
+                tooLong = true;
+            } else {
+                line.append(buffer, start, end - start);
+            }
+        }
+
+        private String terminate() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r' && !tooLong) {
+                line.setLength(length - 1);
+            }
+            return line.toString();
+        }
+    }
+
+    private static final class ImportProgress {
+
+        private final int maxReportedFailures;
+        private final List<Long> failedLines = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long failed;
+
+        private ImportProgress(int maxReportedFailures) {
+            this.maxReportedFailures = maxReportedFailures;
+        }
+
+        private void received() {
+            received++;
+        }
+
+        private void imported(int count) {
+            imported += count;
+        }
+
+        private void failed(long lineNumber) {
+            failed++;
+            if (failedLines.size() < maxReportedFailures) {
+                failedLines.add(lineNumber);
+            }
+        }
+
+        private ImportSummary toSummary() {
+            return ImportSummary.builder()
+                    .receivedCount(received)
+                    .importedCount(imported)
+                    .failedCount(failed)
+                    .failedLines(failedLines)
+                    .failedLinesTruncated(failed > failedLines.size())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package nl.example.assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.AppointmentPartitionProperties;
+import org.postgresql.PGConnection;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of the appointment table in shape on PostgreSQL.
+ *
+ * <p>Runs at startup and on {@code appointment.partitions.maintenance-cron}:</p>
+ * <ol>
+ *   <li>adds the foreign key to {@code patient}, which the schema script cannot create before Hibernate
+ *       has created the patient table;</li>
+ *   <li>creates the partitions of the current month and {@code months-ahead} months after it;</li>
+ *   <li>gives every month that has rows in {@code appointment_default} its own partition,
+ *       moving those rows out of the default partition in the same transaction;</li>
+ *   <li>exports partitions older than {@code retention-months} to {@code <archive-directory>/<partition>.csv.gz}
+ *       with their reason texts and detaches them, holding a share lock from export to detach so no row is
+ *       missed. The appointment summary of every patient with rows in the partition is reset, to be recomputed
+ *       by {@link PatientAppointmentSummaryRepair}. Appointments hidden by a delete and still waiting for
+ *       {@link AppointmentPurger} are left out of the export.</li>
+ * </ol>
+ *
+ * <p>Every step is idempotent, so a failed run is simply repeated by the next one. Does nothing on other
+ * databases or when the table is not partitioned.</p>
+ */
+@Component
+@Slf4j
+public class AppointmentPartitionMaintenance implements ApplicationRunner {
+
+    static final String PARENT_TABLE = "appointment";
+    static final String DEFAULT_PARTITION = "appointment_default";
+    static final String PATIENT_FOREIGN_KEY = "fk_appointment_patient";
+    /**
+     * Archived rows carry their reason texts rather than ids into {@code appointment_reason}, so an archive can be
+     * read on its own; hidden appointments, whose generation is behind their patient's, are left out.
+     */
+    private static final String ARCHIVE_SELECT = "SELECT a.id, a.patient_id, a.date, r.reason,"
+            + " rn.reason AS reason_normalized, a.created_date, a.modified_date";
+    private static final String ARCHIVE_JOINS = " LEFT JOIN appointment_reason r ON r.id = a.reason_id"
+            + " LEFT JOIN appointment_reason rn ON rn.id = a.reason_normalized_id"
+            + " LEFT JOIN patient p ON p.id = a.patient_id"
+            + " WHERE p.id IS NULL OR a.generation = p.appointment_generation";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'appointment_p'yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppointmentPartitionProperties properties;
+    private final boolean active;
+
+    public AppointmentPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                           TransactionTemplate transactionTemplate,
+                                           AppointmentPartitionProperties properties,
+                                           DatabaseDriver databaseDriver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.active = properties.enabled() && databaseDriver == DatabaseDriver.POSTGRESQL;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        maintain();
+    }
+
+    @Scheduled(cron = "${appointment.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!active) {
+            return;
+        }
+        if (!isPartitioned()) {
+            log.warn("Table '{}' is not partitioned; skipping partition maintenance", PARENT_TABLE);
+            return;
+        }
+
+        ensurePatientForeignKey();
+
+        YearMonth current = YearMonth.now();
+        SortedSet<YearMonth> months = new TreeSet<>(monthsInDefaultPartition());
+        for (int i = 0; i <= properties.monthsAhead(); i++) {
+            months.add(current.plusMonths(i));
+        }
+        months.forEach(this::ensurePartition);
+
+        expiredPartitions(attachedPartitions(), current, properties.retentionMonths()).forEach(this::archive);
+    }
+
+    /**
+     * @return the monthly partitions among {@code partitions} that lie more than {@code retentionMonths} months
+     * before {@code current}; the default partition and tables not named by {@link #partitionName} are kept
+     */
+    static List<String> expiredPartitions(List<String> partitions, YearMonth current, int retentionMonths) {
+        YearMonth oldestRetained = current.minusMonths(retentionMonths);
+        return partitions.stream()
+                .filter(partition -> {
+                    YearMonth month = monthOf(partition);
+                    return month != null && month.isBefore(oldestRetained);
+                })
+                .toList();
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_NAME.format(month.atDay(1));
+    }
+
+    static YearMonth monthOf(String partition) {
+        try {
+            return YearMonth.parse(partition, PARTITION_NAME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                Boolean.class, PARENT_TABLE));
+    }
+
+    private void ensurePatientForeignKey() {
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean present = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f')",
+                    Boolean.class, PARENT_TABLE);
+            if (!present) {
+                jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ADD CONSTRAINT " + PATIENT_FOREIGN_KEY
+                        + " FOREIGN KEY (patient_id) REFERENCES patient (id)");
+                log.info("Added foreign key {} to {}", PATIENT_FOREIGN_KEY, PARENT_TABLE);
+            }
+        });
+    }
+
+    private List<YearMonth> monthsInDefaultPartition() {
+        return jdbcTemplate.queryForList(
+                        "SELECT DISTINCT CAST(date_trunc('month', date) AS date) FROM " + DEFAULT_PARTITION,
+                        Date.class)
+                .stream()
+                .map(day -> YearMonth.from(day.toLocalDate()))
+                .toList();
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)",
+                String.class, PARENT_TABLE);
+    }
+
+    private void ensurePartition(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String bounds = String.format("FOR VALUES FROM ('%s') TO ('%s')", from, to);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+                return;
+            }
+            boolean rowsInDefault = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE date >= ? AND date < ?)",
+                    Boolean.class, Date.valueOf(from), Date.valueOf(to));
+            if (!rowsInDefault) {
+                jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + PARENT_TABLE + " " + bounds);
+                log.info("Created partition {}", partition);
+                return;
+            }
+            // a new partition must not overlap rows still sitting in the default partition
+            jdbcTemplate.execute("CREATE TABLE " + partition
+                    + " (LIKE " + PARENT_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING GENERATED)");
+            String columns = storedColumns();
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                            + " WHERE date >= ? AND date < ? RETURNING *) INSERT INTO " + partition
+                            + " (" + columns + ") SELECT " + columns + " FROM moved",
+                    Date.valueOf(from), Date.valueOf(to));
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + partition + " " + bounds);
+            log.info("Created partition {} with {} rows moved from {}", partition, moved, DEFAULT_PARTITION);
+        });
+    }
+
+    /**
+     * Columns that can be written, i.e. all but generated ones.
+     */
+    private String storedColumns() {
+        return jdbcTemplate.queryForObject("""
+                SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) FROM pg_attribute
+                 WHERE attrelid = to_regclass(?) AND attnum > 0 AND NOT attisdropped AND attgenerated = ''
+                """, String.class, PARENT_TABLE);
+    }
+
+    private void archive(String partition) {
+        Path target = properties.archiveDirectory().resolve(partition + ".csv.gz");
+        Path part = properties.archiveDirectory().resolve(partition + ".csv.gz.part");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+            long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                try {
+                    Files.createDirectories(properties.archiveDirectory());
+                    try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(part)))) {
+                        return connection.unwrap(PGConnection.class).getCopyAPI()
+                                .copyOut("COPY (" + ARCHIVE_SELECT + " FROM " + partition + " a" + ARCHIVE_JOINS
+                                        + ") TO STDOUT (FORMAT csv, HEADER)", out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // the patients' count and latest-appointment pointer are recomputed by PatientAppointmentSummaryRepair
+            jdbcTemplate.update("UPDATE patient SET appointment_count = NULL"
+                    + " WHERE id IN (SELECT DISTINCT patient_id FROM " + partition + ")");
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+            if (properties.dropArchived()) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+            log.info("Archived {} rows of partition {} to {}", rows, partition, target);
+        });
+    }
+}
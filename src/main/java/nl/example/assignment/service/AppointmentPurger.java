@@ -0,0 +1,237 @@
+package nl.example.assignment.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.AppointmentPurgeProperties;
+import nl.example.assignment.repository.ReasonCount;
+import nl.example.assignment.repository.ReasonDictionary;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes hidden appointments in the background, in small committed batches.
+ *
+ * <p>Deleting a patient's appointments only starts a new appointment generation for the patient, which hides them
+ * from every read at once, and queues the patient in {@code appointment_purge} with that generation. This purger then
+ * deletes the patient's rows of older generations {@code appointment.purge.batch-size} at a time, each batch in its own
+ * transaction and followed by {@code appointment.purge.pause}, so a long history never holds its locks or writes its
+ * WAL in one burst. Batches walk the patient's rows newest first with a {@code (date, id)} cursor, so each batch
+ * starts where the previous one stopped instead of stepping over the index entries just deleted. The queue entry is
+ * removed by the batch that finds nothing left to delete.</p>
+ *
+ * <p>Runs every {@code appointment.purge.interval} on its own thread, so its pauses never hold up the
+ * {@code @Scheduled} tasks sharing Spring's single scheduler thread.</p>
+ *
+ * <p>Each batch first locks the patient's queue entry, so instances purging the same patient take turns instead of
+ * deleting and counting the same rows twice. Deleted rows are counted in {@link AppointmentUsageStatistics} when
+ * their batch commits.</p>
+ */
+@Component
+@Slf4j
+public class AppointmentPurger {
+
+    private static final String POSTGRESQL_SCHEDULE = """
+            INSERT INTO appointment_purge (patient_id, generation, requested_date)
+            VALUES (?, ?, ?)
+            ON CONFLICT (patient_id) DO UPDATE SET generation = EXCLUDED.generation
+            """;
+
+    private static final String H2_SCHEDULE = """
+            MERGE INTO appointment_purge t
+            USING (VALUES (CAST(? AS UUID), CAST(? AS INTEGER), CAST(? AS TIMESTAMP)))
+               AS s (patient_id, generation, requested_date)
+               ON t.patient_id = s.patient_id
+             WHEN MATCHED THEN UPDATE SET t.generation = s.generation
+             WHEN NOT MATCHED THEN INSERT (patient_id, generation, requested_date)
+                  VALUES (s.patient_id, s.generation, s.requested_date)
+            """;
+
+    private static final String SELECT_PENDING = """
+            SELECT patient_id FROM appointment_purge ORDER BY requested_date
+            """;
+
+    private static final String LOCK_PENDING = """
+            SELECT generation FROM appointment_purge WHERE patient_id = ? FOR UPDATE
+            """;
+
+    private static final String SELECT_FIRST_BATCH = """
+            SELECT id, date, reason_normalized_id
+              FROM appointment
+             WHERE patient_id = ? AND generation < ?
+             ORDER BY date DESC, id DESC
+             LIMIT ?
+            """;
+
+    private static final String SELECT_NEXT_BATCH = """
+            SELECT id, date, reason_normalized_id
+              FROM appointment
+             WHERE patient_id = ? AND generation < ?
+               AND date <= ? AND (date < ? OR id < ?)
+             ORDER BY date DESC, id DESC
+             LIMIT ?
+            """;
+
+    private static final String DELETE_APPOINTMENT = "DELETE FROM appointment WHERE id = ? AND date = ?";
+
+    private static final String COMPLETE = "DELETE FROM appointment_purge WHERE patient_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReasonDictionary reasonDictionary;
+    private final AppointmentUsageStatistics usageStatistics;
+    private final AppointmentPurgeProperties properties;
+    private final String scheduleSql;
+    private final ScheduledExecutorService executor;
+
+    public AppointmentPurger(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ReasonDictionary reasonDictionary,
+                             AppointmentUsageStatistics usageStatistics,
+                             AppointmentPurgeProperties properties,
+                             DatabaseDriver databaseDriver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.reasonDictionary = reasonDictionary;
+        this.usageStatistics = usageStatistics;
+        this.properties = properties;
+        this.scheduleSql = databaseDriver == DatabaseDriver.POSTGRESQL ? POSTGRESQL_SCHEDULE : H2_SCHEDULE;
+
+        long interval = properties.interval().toMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("appointment-purger-"));
+        executor.scheduleWithFixedDelay(this::purgeScheduled, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // interrupts the pause between batches; the batch in flight commits or rolls back as a whole
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the patient's appointments of generations before {@code generation} for deletion, in the caller's
+     * transaction, which holds the patient's row lock.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void schedule(UUID patientId, int generation) {
+        jdbcTemplate.update(scheduleSql, patientId, generation, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Deletes queued appointments, oldest request first, for at most {@code appointment.purge.max-batches-per-run}
+     * batches.
+     *
+     * @return the number of appointments deleted
+     */
+    public long purgePending() {
+        long purged = 0;
+        int batches = 0;
+        for (UUID patientId : jdbcTemplate.queryForList(SELECT_PENDING, UUID.class)) {
+            PurgeCursor cursor = null;
+            while (batches < properties.maxBatchesPerRun()) {
+                PurgeCursor after = cursor;
+                cursor = transactionTemplate.execute(status -> purgeBatch(patientId, after));
+                if (cursor == null) {
+                    break;
+                }
+                purged += cursor.deleted();
+                batches++;
+                if (!pause()) {
+                    return purged;
+                }
+            }
+            if (batches >= properties.maxBatchesPerRun()) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} hidden appointments in {} batches", purged, batches);
+        }
+        return purged;
+    }
+
+    private void purgeScheduled() {
+        try {
+            purgePending();
+        } catch (RuntimeException e) {
+            // an exception would cancel every later run of the executor
+            log.error("Purging hidden appointments failed; retrying in {}", properties.interval(), e);
+        }
+    }
+
+    /**
+     * @param after where the previous batch of this run stopped, or {@code null} to start at the newest row
+     * @return where this batch stopped, or {@code null} once the patient has nothing left to purge
+     */
+    private PurgeCursor purgeBatch(UUID patientId, PurgeCursor after) {
+        List<Integer> locked = jdbcTemplate.queryForList(LOCK_PENDING, Integer.class, patientId);
+        if (locked.isEmpty()) {
+            return null;
+        }
+        int generation = locked.get(0);
+        int batchSize = Math.max(1, properties.batchSize());
+        RowMapper<PurgedAppointment> mapper = (rs, rowNum) -> new PurgedAppointment(rs.getObject("id", UUID.class),
+                rs.getTimestamp("date"), rs.getObject("reason_normalized_id", Integer.class));
+        // a delete since the previous batch may have hidden newer rows, so start again from the top
+        List<PurgedAppointment> batch = after == null || after.generation() != generation
+                ? jdbcTemplate.query(SELECT_FIRST_BATCH, mapper, patientId, generation, batchSize)
+                : jdbcTemplate.query(SELECT_NEXT_BATCH, mapper, patientId, generation,
+                        after.date(), after.date(), after.id(), batchSize);
+        if (batch.isEmpty()) {
+            jdbcTemplate.update(COMPLETE, patientId);
+            return null;
+        }
+        jdbcTemplate.batchUpdate(DELETE_APPOINTMENT, batch, batch.size(), (statement, appointment) -> {
+            statement.setObject(1, appointment.id());
+            statement.setTimestamp(2, appointment.date());
+        });
+        if (usageStatistics.isEnabled()) {
+            usageStatistics.recordDeleted(countByReason(batch));
+        }
+        PurgedAppointment last = batch.get(batch.size() - 1);
+        return new PurgeCursor(generation, last.date(), last.id(), batch.size());
+    }
+
+    private List<ReasonCount> countByReason(List<PurgedAppointment> batch) {
+        Map<Integer, Long> countByReasonId = new HashMap<>();
+        batch.forEach(appointment -> countByReasonId.merge(appointment.reasonId(), 1L, Long::sum));
+        return countByReasonId.entrySet().stream()
+                .map(count -> new ReasonCount(
+                        count.getKey() == null ? null : reasonDictionary.reason(count.getKey()), count.getValue()))
+                .toList();
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.pause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record PurgedAppointment(UUID id, Timestamp date, Integer reasonId) {
+    }
+
+    /**
+     * The last row deleted by a batch, the generation it was purged for and the size of the batch.
+     */
+    private record PurgeCursor(int generation, Timestamp date, UUID id, int deleted) {
+    }
+}
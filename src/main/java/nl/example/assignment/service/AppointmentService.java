@@ -1,23 +1,45 @@
 package nl.example.assignment.service;
 
-import static nl.example.assignment.mapper.AppointmentMapper.toDto;
-
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.AppointmentSearchProperties;
+import nl.example.assignment.dto.AppointmentCursor;
+import nl.example.assignment.dto.AppointmentPage;
+import nl.example.assignment.dto.BatchCreateAppointmentsRequestBody;
+import nl.example.assignment.dto.BatchCreateSummary;
+import nl.example.assignment.dto.LatestAppointmentsSummary;
 import nl.example.assignment.model.Appointment;
 import nl.example.assignment.repository.PatientRepository;
 import nl.example.assignment.dto.AppointmentDto;
 import nl.example.assignment.dto.CreateAppointmentRequestBody;
 import nl.example.assignment.model.Patient;
 import nl.example.assignment.repository.AppointmentRepository;
+import nl.example.assignment.repository.PatientAppointmentSummary;
+import nl.example.assignment.repository.PatientLatestAppointment;
+import nl.example.assignment.repository.ReasonDictionary;
 import nl.example.assignment.mapper.AppointmentMapper;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 /**
  * Service layer for managing appointments in the system.
  *
@@ -53,7 +75,55 @@ import java.util.stream.Collectors;
  *   <li><strong>Single-responsibility methods:</strong> Split logic into discrete public methods
  *       ({@code createBulkAppointments}, {@code findAppointmentsByReason},
  *       {@code deleteAppointmentsForPatient}, {@code getLatestAppointmentForPatient})
- *       each handling one aspect of appointment management.
+ *       each handling one aspect of appointment management.</li>
+ *   <li><strong>Database-side reason matching:</strong> {@code findAppointmentsByReason} matches
+ *       on the indexed normalized reason column instead of filtering a {@code LIKE} scan in memory.</li>
+ *   <li><strong>Bounded reason search:</strong> Reason lookups are keyset-paginated on {@code (date, id)}
+ *       with a capped page size, and {@code streamAppointmentsByReason} serves full result sets
+ *       from a JDBC cursor instead of a materialized list.</li>
+ *   <li><strong>Latest-appointment cache:</strong> {@code getLatestAppointmentForPatient} is served from
+ *       {@link LatestAppointmentCache}; every write path invalidates the affected SSNs.</li>
+ *   <li><strong>Atomic patient upsert:</strong> Replaced the {@code findBySsn(...).orElseGet(save(...))}
+ *       round-trips with {@code PatientRepository.upsertBySsn}, which also removes the unique-constraint
+ *       race between concurrent bulk creates for a new SSN.</li>
+ *   <li><strong>Projection reads:</strong> Reason search, streaming and latest lookups select straight into
+ *       {@code AppointmentDto} instead of hydrating managed entities only to copy three fields out of them.</li>
+ *   <li><strong>Multi-patient batch create:</strong> {@code createBatchAppointments} resolves all SSNs of a
+ *       request through {@link PatientResolver} with {@code IN} queries and one batched insert of the missing
+ *       patients, instead of one HTTP call and one lookup per patient.</li>
+ *   <li><strong>Date-range lookup:</strong> {@code findAppointmentsInRange} returns the newest N appointments
+ *       of a patient within a date range from the {@code (patient_id, date DESC)} index; the patient existence
+ *       check only runs when the range is empty.</li>
+ *   <li><strong>Read replica routing:</strong> Read-only methods run on the replica when one is configured;
+ *       writes are recorded in {@link ReadYourWritesTracker} so a patient's reads stay on the primary for a
+ *       short window after that patient was written.</li>
+ *   <li><strong>COPY fast path:</strong> Inserts go through {@link AppointmentWriter}, which switches from
+ *       batched {@code INSERT}s to PostgreSQL binary {@code COPY} above {@code appointment.write.copy-threshold} rows.</li>
+ *   <li><strong>Full-text reason search:</strong> {@code searchAppointments} matches words anywhere in the reason
+ *       through a GIN-indexed {@code tsvector} on PostgreSQL and ranks the matches, where the reason lookup only
+ *       finds exact normalized reasons.</li>
+ *   <li><strong>Usage statistics:</strong> Replaces the removed {@code HospitalUtils.recordUsage} with
+ *       {@link AppointmentUsageStatistics}: creates (through {@link AppointmentWriter}) and deletes are counted per
+ *       day and reason in bounded in-memory counters that are flushed to a table.</li>
+ *   <li><strong>Bulk export:</strong> {@code exportAppointments} hands every appointment of a patient and/or date
+ *       range to a sink straight from a JDBC cursor, like the reason stream, so exports of any size use constant heap.</li>
+ *   <li><strong>Multi-patient latest lookup:</strong> {@code getLatestAppointmentsForPatients} serves cached patients
+ *       from {@link LatestAppointmentCache} and the rest with one query, reporting unknown SSNs and patients without
+ *       appointments instead of failing, where the single lookup costs two queries per patient.</li>
+ *   <li><strong>Latest-appointment pointer:</strong> Every insert and delete maintains the patient's appointment count
+ *       and latest-appointment pointer in the same transaction, so {@code getLatestAppointmentForPatient} is a
+ *       primary-key read instead of a sort and {@code countAppointmentsForPatient} reads a single column. Rows not yet
+ *       computed by {@link PatientAppointmentSummaryRepair} fall back to the previous queries.</li>
+ *   <li><strong>Reason dictionary:</strong> Reason lookups first resolve the normalized reason in
+ *       {@link ReasonDictionary}; an unknown reason returns no matches without a query, a known one is an integer
+ *       equality match on the reason index.</li>
+ *   <li><strong>Patient id cache:</strong> SSNs resolve to patient ids through {@link PatientIdCache}, so for hot
+ *       patients the latest lookup is one statement following the pointer, the delete goes straight to the patient row
+ *       lock and the date-range existence check needs no query at all.</li>
+ *   <li><strong>Background purge:</strong> {@code deleteAppointmentsForPatient} starts a new appointment generation
+ *       for the patient, which hides all of its appointments from every read, and leaves the rows to
+ *       {@link AppointmentPurger}, so the request costs a few single-row statements however long the history is.
+ *       Usage statistics count the rows as they are purged.</li>
  * </ul>
  */
 @Service
@@ -63,52 +133,144 @@ public class AppointmentService {
 
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
+    private final AppointmentWriter appointmentWriter;
+    private final AppointmentSearchProperties searchProperties;
+    private final LatestAppointmentCache latestAppointmentCache;
+    private final PatientResolver patientResolver;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ReasonDictionary reasonDictionary;
+    private final PatientIdCache patientIdCache;
+    private final AppointmentPurger appointmentPurger;
 
     @Transactional
     public List<AppointmentDto> createBulkAppointments(CreateAppointmentRequestBody request) {
         String ssn = request.getSsn();
         log.debug("Starting bulk appointment creation for SSN={}", ssn);
 
-        Patient patient = patientRepository.findBySsn(ssn)
-                .orElseGet(() -> {
-                    log.info("No existing patient found for SSN={}, creating new record", ssn);
-                    return patientRepository.save(new Patient(request.getPatientName(), ssn));
-                });
+        UUID patientId = patientRepository.upsertBySsn(request.getPatientName(), ssn);
+        patientIdCache.put(ssn, patientId);
+        Patient patient = patientRepository.getReferenceById(patientId);
         log.info("Using patient [id={}] for appointment creation", patient.getId());
 
         List<Appointment> appointments = request.getAppointmentDetails().stream()
                 .map(d -> new Appointment(d.getReason(), d.getDate(), patient))
                 .collect(Collectors.toList());
 
-        List<Appointment> saved = appointmentRepository.saveAll(appointments);
+        List<Appointment> saved = appointmentWriter.insert(appointments);
+        latestAppointmentCache.invalidate(ssn);
+        readYourWritesTracker.recordWrite(ssn);
         log.info("Created {} appointments for patient id={}", saved.size(), patient.getId());
         return saved.stream().map(AppointmentMapper::toDto).collect(Collectors.toList());
     }
 
+    /**
+     * Creates appointments for many patients at once.
+     *
+     * <p>All SSNs are resolved together by {@link PatientResolver} and the appointments are written
+     * in one go by {@link AppointmentWriter}: JDBC batches of {@code hibernate.jdbc.batch_size}, or
+     * {@code COPY} on PostgreSQL for large requests.
+     * Entries repeating an SSN are merged; the first name given for a new patient is used.</p>
+     */
+    @Transactional
+    public BatchCreateSummary createBatchAppointments(BatchCreateAppointmentsRequestBody request) {
+        List<CreateAppointmentRequestBody> entries = request.getPatients();
+        log.debug("Starting batch appointment creation for {} patient entries", entries.size());
+
+        Map<String, String> nameBySsn = new LinkedHashMap<>();
+        entries.forEach(entry -> nameBySsn.putIfAbsent(entry.getSsn(), entry.getPatientName()));
+        Map<String, UUID> patientIds = patientResolver.resolve(nameBySsn);
+        patientIdCache.putAll(patientIds);
+
+        List<Appointment> appointments = new ArrayList<>();
+        for (CreateAppointmentRequestBody entry : entries) {
+            Patient patient = patientRepository.getReferenceById(patientIds.get(entry.getSsn()));
+            entry.getAppointmentDetails().forEach(d -> appointments.add(new Appointment(d.getReason(), d.getDate(), patient)));
+        }
+
+        appointmentWriter.insert(appointments);
+        latestAppointmentCache.invalidateAll(nameBySsn.keySet());
+        readYourWritesTracker.recordWrites(nameBySsn.keySet());
+        log.info("Created {} appointments for {} patients", appointments.size(), patientIds.size());
+        return BatchCreateSummary.builder()
+                .patientCount(patientIds.size())
+                .appointmentCount(appointments.size())
+                .build();
+    }
+
     @Transactional(readOnly = true)
-    public List<AppointmentDto> findAppointmentsByReason(String reason) {
-        log.debug("Searching appointments containing reason keyword: {}", reason);
+    public AppointmentPage findAppointmentsByReason(String reason, AppointmentCursor after, Integer requestedSize) {
+        log.debug("Searching appointments with reason: {} after {}", reason, after);
 
-        List<Appointment> matches = appointmentRepository.findByReasonWithPatient(reason);
-        List<AppointmentDto> dtos = matches.stream()
-                .filter(a -> a.getReason().equalsIgnoreCase(reason))
-                .map(appointment -> AppointmentMapper.toDtoWithPatient(appointment, appointment.getPatient()))
-                .collect(Collectors.toList());
+        int size = searchProperties.pageSize(requestedSize);
+        String normalized = Appointment.normalizeReason(reason);
+        if (reasonDictionary.find(normalized) == null) {
+            log.info("No appointments with unknown reason='{}'", reason);
+            return AppointmentPage.builder().items(List.of()).build();
+        }
+        Limit limit = Limit.of(size + 1);
+        List<AppointmentDto> matches = after == null
+                ? appointmentRepository.findByReasonWithPatient(normalized, limit)
+                : appointmentRepository.findByReasonWithPatientAfter(normalized, after.date(), after.id(), limit);
 
-        log.info("Found {} appointments matching reason='{}'", dtos.size(), reason);
-        return dtos;
+        boolean hasMore = matches.size() > size;
+        List<AppointmentDto> dtos = hasMore ? matches.subList(0, size) : matches;
+        String nextCursor = null;
+        if (hasMore) {
+            AppointmentDto last = dtos.get(dtos.size() - 1);
+            nextCursor = new AppointmentCursor(last.getDate(), UUID.fromString(last.getId())).encode();
+        }
+
+        log.info("Found {} appointments matching reason='{}' (more: {})", dtos.size(), reason, hasMore);
+        return AppointmentPage.builder().items(dtos).nextCursor(nextCursor).build();
     }
 
+    /**
+     * Hands every appointment with the given reason to {@code sink} while the rows are read
+     * from an open JDBC cursor, in {@code (date, id)} order.
+     *
+     * <p>Rows are projected straight into DTOs, so nothing accumulates in the persistence context
+     * and the memory used does not depend on the number of matches.</p>
+     */
+    @Transactional(readOnly = true)
+    public long streamAppointmentsByReason(String reason, Consumer<AppointmentDto> sink) {
+        log.debug("Streaming appointments with reason: {}", reason);
+
+        String normalized = Appointment.normalizeReason(reason);
+        if (reasonDictionary.find(normalized) == null) {
+            log.info("No appointments to stream for unknown reason='{}'", reason);
+            return 0;
+        }
+        long count = 0;
+        try (Stream<AppointmentDto> matches = appointmentRepository.streamByReasonWithPatient(normalized)) {
+            Iterator<AppointmentDto> iterator = matches.iterator();
+            while (iterator.hasNext()) {
+                sink.accept(iterator.next());
+                count++;
+            }
+        }
+
+        log.info("Streamed {} appointments matching reason='{}'", count, reason);
+        return count;
+    }
+
+    /**
+     * @return the number of appointments hidden, or empty when the patient's summary had not been computed yet;
+     *         counting the rows instead would cost the request as much as deleting them
+     */
     @Transactional
-    public long deleteAppointmentsForPatient(String ssn) {
+    public OptionalLong deleteAppointmentsForPatient(String ssn) {
         log.debug("Deleting appointments for SSN={} (masked)", ssn);
 
-        Patient patient = patientRepository.findBySsn(ssn)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("Patient with SSN '%s' not found", ssn)));
+        UUID patientId = hideAppointments(ssn);
+        PatientAppointmentSummary patient = patientRepository.findAppointmentSummaryById(patientId).orElseThrow();
+        OptionalLong count = patient.isComputed() ? OptionalLong.of(patient.appointmentCount()) : OptionalLong.empty();
+        patientRepository.clearAppointmentSummary(patientId);
+        appointmentPurger.schedule(patientId, patient.appointmentGeneration());
 
-        int count = appointmentRepository.deleteByPatientSsn(ssn);
-        log.info("Deleted {} appointments for patient id={}", count, patient.getId());
+        latestAppointmentCache.invalidate(ssn);
+        readYourWritesTracker.recordWrite(ssn);
+        log.info("Deleted {} appointments for patient id={}, purging in the background",
+                count.isPresent() ? count.getAsLong() : "uncounted", patientId);
         return count;
     }
 
@@ -116,18 +278,201 @@ public class AppointmentService {
     public AppointmentDto getLatestAppointmentForPatient(String ssn) {
         log.debug("Retrieving latest appointment for SSN={} (masked)", ssn);
 
-        if (patientRepository.findBySsn(ssn).isEmpty()) {
-            throw new EntityNotFoundException(
-                    String.format("Patient with SSN '%s' not found", ssn));
+        AppointmentDto cached = latestAppointmentCache.get(ssn);
+        if (cached != null) {
+            return cached;
         }
+        long stamp = latestAppointmentCache.stamp();
+        readYourWritesTracker.pinIfRecentlyWritten(ssn);
 
-        Optional<Appointment> opt = appointmentRepository.findTopByPatient_SsnOrderByDateDesc(ssn);
-        Appointment appointment = opt.orElseThrow(() ->
-                new EntityNotFoundException(
-                        String.format("No appointments found for SSN '%s'", ssn)));
+        UUID patientId = patientIdCache.get(ssn);
+        Optional<AppointmentDto> latest = patientId == null
+                ? Optional.empty()
+                : appointmentRepository.findLatestByPatientPointer(patientId);
+        if (latest.isEmpty()) {
+            latest = findLatestFromSummary(ssn);
+        }
 
-        AppointmentDto dto = toDto(appointment);
+        AppointmentDto dto = latest.orElseThrow(() -> new EntityNotFoundException(
+                String.format("No appointments found for SSN '%s'", ssn)));
+        latestAppointmentCache.put(ssn, dto, stamp);
         log.info("Latest appointment id={} retrieved for patient ssn={}", dto.getId(), ssn);
         return dto;
     }
-}
\ No newline at end of file
+
+    /**
+     * Number of appointments of a patient, read from the patient row unless its summary still has to be computed.
+     */
+    @Transactional(readOnly = true)
+    public long countAppointmentsForPatient(String ssn) {
+        log.debug("Counting appointments for SSN={} (masked)", ssn);
+
+        readYourWritesTracker.pinIfRecentlyWritten(ssn);
+        PatientAppointmentSummary patient = findAppointmentSummary(ssn);
+        return patient.isComputed()
+                ? patient.appointmentCount()
+                : appointmentRepository.countByPatientIdAndGeneration(patient.id(), patient.appointmentGeneration());
+    }
+
+    /**
+     * Returns the most recent appointments of a patient with {@code from <= date < to}, newest first,
+     * at most {@code requestedLimit} of them (capped like a reason search page).
+     */
+    @Transactional(readOnly = true)
+    public List<AppointmentDto> findAppointmentsInRange(String ssn, LocalDateTime from, LocalDateTime to,
+                                                        Integer requestedLimit) {
+        log.debug("Retrieving appointments for SSN={} (masked) between {} and {}", ssn, from, to);
+
+        readYourWritesTracker.pinIfRecentlyWritten(ssn);
+        int limit = searchProperties.pageSize(requestedLimit);
+        List<AppointmentDto> dtos = appointmentRepository.findByPatientSsnInRange(ssn, from, to, Limit.of(limit));
+        if (dtos.isEmpty() && patientIdCache.get(ssn) == null) {
+            findPatientId(ssn); // throws for an unknown patient
+        }
+
+        log.info("Found {} appointments in range for patient ssn={}", dtos.size(), ssn);
+        return dtos;
+    }
+
+    /**
+     * Full-text search over appointment reasons, best matches first, at most {@code requestedLimit} of them
+     * (capped like a reason search page).
+     */
+    @Transactional(readOnly = true)
+    public List<AppointmentDto> searchAppointments(String query, Integer requestedLimit) {
+        log.debug("Searching appointments for reason query: {}", query);
+
+        int limit = searchProperties.pageSize(requestedLimit);
+        List<AppointmentDto> dtos = appointmentRepository.searchByReason(query, limit);
+
+        log.info("Found {} appointments matching reason query='{}'", dtos.size(), query);
+        return dtos;
+    }
+
+    /**
+     * Hands every appointment matching the optional filters to {@code sink}, with its patient, while the rows are
+     * read from an open JDBC cursor; in {@code (date, id)} order when {@code ssn} is given, in storage order otherwise.
+     */
+    @Transactional(readOnly = true)
+    public long exportAppointments(String ssn, LocalDateTime from, LocalDateTime to, Consumer<AppointmentDto> sink) {
+        log.debug("Exporting appointments for SSN={} (masked) between {} and {}", ssn, from, to);
+
+        if (ssn != null) {
+            readYourWritesTracker.pinIfRecentlyWritten(ssn);
+        }
+        long count = 0;
+        try (Stream<AppointmentDto> rows = appointmentRepository.streamForExport(ssn, from, to)) {
+            Iterator<AppointmentDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                sink.accept(iterator.next());
+                count++;
+            }
+        }
+
+        log.info("Exported {} appointments", count);
+        return count;
+    }
+
+    /**
+     * Latest appointment of each of the given patients: cached ones from {@link LatestAppointmentCache}, all others
+     * with a single query. Unknown SSNs and patients without appointments are reported, not thrown.
+     */
+    @Transactional(readOnly = true)
+    public LatestAppointmentsSummary getLatestAppointmentsForPatients(Collection<String> requestedSsns) {
+        Set<String> ssns = new LinkedHashSet<>(requestedSsns);
+        log.debug("Retrieving latest appointments for {} patients", ssns.size());
+
+        Map<String, AppointmentDto> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String ssn : ssns) {
+            AppointmentDto cached = latestAppointmentCache.get(ssn);
+            if (cached != null) {
+                found.put(ssn, cached);
+            } else {
+                misses.add(ssn);
+            }
+        }
+
+        Set<String> withoutAppointments = new HashSet<>();
+        Set<String> known = new HashSet<>(found.keySet());
+        if (!misses.isEmpty()) {
+            long stamp = latestAppointmentCache.stamp();
+            misses.forEach(readYourWritesTracker::pinIfRecentlyWritten);
+            for (PatientLatestAppointment row : appointmentRepository.findLatestBySsnIn(misses)) {
+                known.add(row.ssn());
+                if (row.latest() == null) {
+                    withoutAppointments.add(row.ssn());
+                } else {
+                    found.put(row.ssn(), row.latest());
+                    latestAppointmentCache.put(row.ssn(), row.latest(), stamp);
+                }
+            }
+        }
+
+        Map<String, AppointmentDto> latest = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        List<String> empty = new ArrayList<>();
+        for (String ssn : ssns) {
+            if (found.containsKey(ssn)) {
+                latest.put(ssn, found.get(ssn));
+            } else if (withoutAppointments.contains(ssn)) {
+                empty.add(ssn);
+            } else if (!known.contains(ssn)) {
+                unknown.add(ssn);
+            }
+        }
+
+        log.info("Found latest appointments for {} of {} patients ({} from cache), {} unknown",
+                latest.size(), ssns.size(), ssns.size() - misses.size(), unknown.size());
+        return LatestAppointmentsSummary.builder()
+                .latest(latest)
+                .unknownSsns(unknown)
+                .ssnsWithoutAppointments(empty)
+                .build();
+    }
+
+    /**
+     * Latest appointment from the patient's summary, falling back to sorting the appointments while the summary
+     * still has to be computed.
+     */
+    private Optional<AppointmentDto> findLatestFromSummary(String ssn) {
+        PatientAppointmentSummary patient = findAppointmentSummary(ssn);
+        if (!patient.isComputed()) {
+            return appointmentRepository.findLatestByPatientSsn(ssn, Limit.of(1));
+        }
+        if (patient.latestAppointmentId() == null) {
+            return Optional.empty();
+        }
+        return appointmentRepository.findByIdAndDate(patient.latestAppointmentId(), patient.latestAppointmentDate());
+    }
+
+    /**
+     * Starts a new appointment generation for the patient, which takes its row lock, and returns its id. A cached id
+     * saves the SSN lookup.
+     */
+    private UUID hideAppointments(String ssn) {
+        UUID cached = patientIdCache.get(ssn);
+        if (cached != null && patientRepository.hideAppointments(cached) > 0) {
+            return cached;
+        }
+        UUID patientId = findPatientId(ssn);
+        patientRepository.hideAppointments(patientId);
+        return patientId;
+    }
+
+    private UUID findPatientId(String ssn) {
+        UUID patientId = patientRepository.findIdBySsn(ssn)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        String.format("Patient with SSN '%s' not found", ssn)));
+        patientIdCache.put(ssn, patientId);
+        return patientId;
+    }
+
+    private PatientAppointmentSummary findAppointmentSummary(String ssn) {
+        PatientAppointmentSummary patient = patientRepository.findAppointmentSummaryBySsn(ssn)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        String.format("Patient with SSN '%s' not found", ssn)));
+        patientIdCache.put(ssn, patient.id());
+        return patient;
+    }
+}
@@ -0,0 +1,174 @@
+package nl.example.assignment.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.UsageStatisticsProperties;
+import nl.example.assignment.dto.UsageStatisticDto;
+import nl.example.assignment.model.Appointment;
+import nl.example.assignment.repository.AppointmentUsageStatisticRepository;
+import nl.example.assignment.repository.ReasonCount;
+import nl.example.assignment.repository.UsageStatisticDelta;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-day, per-reason counts of created and deleted appointments.
+ *
+ * <p>Writers add to striped {@link LongAdder}s in a {@link ConcurrentHashMap}: an existing counter is found with a
+ * lock-free {@code get}, and concurrent increments of one counter land in different cells instead of retrying on
+ * one contended value. Counts are applied when the writing transaction commits, so rolled-back writes are never
+ * counted. At most {@code appointment.statistics.maximum-keys} counters exist between flushes; once that many
+ * are in use, reasons without a counter are counted under {@link #OTHER_REASON}.</p>
+ *
+ * <p>{@link #flush()} runs every {@code appointment.statistics.flush-interval} and on shutdown. It drains every
+ * counter with {@code sumThenReset} and adds the totals to {@code appointment_usage_statistic}. Writers only pick
+ * today's counters, so a past day's counter is dropped by the first flush that finds it already drained: a writer
+ * that fetched it just before midnight has had a whole flush interval to add its count. A failed flush puts its
+ * counts back for the next one. Totals read from the table therefore lag the writes by up to one flush interval.</p>
+ */
+@Component
+@Slf4j
+public class AppointmentUsageStatistics {
+
+    static final String OTHER_REASON = "(other)";
+    static final String NO_REASON = "";
+
+    private final ConcurrentHashMap<Key, Counters> counters = new ConcurrentHashMap<>();
+    private final AppointmentUsageStatisticRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final UsageStatisticsProperties properties;
+
+    public AppointmentUsageStatistics(AppointmentUsageStatisticRepository repository,
+                                      TransactionTemplate transactionTemplate,
+                                      UsageStatisticsProperties properties) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    public void recordCreated(Collection<Appointment> appointments) {
+        if (!properties.enabled() || appointments.isEmpty()) {
+            return;
+        }
+        Map<String, Long> countByReason = new HashMap<>();
+        appointments.forEach(appointment -> countByReason.merge(reasonOf(appointment.getReasonNormalized()), 1L, Long::sum));
+        afterCommit(() -> countByReason.forEach((reason, count) -> counters(reason).created.add(count)));
+    }
+
+    public void recordDeleted(Collection<ReasonCount> deleted) {
+        if (!properties.enabled() || deleted.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> deleted.forEach(count -> counters(reasonOf(count.reason())).deleted.add(count.count())));
+    }
+
+    /**
+     * Stored totals for {@code from <= date < to}, ordered by date and reason.
+     */
+    @Transactional(readOnly = true)
+    public List<UsageStatisticDto> findStatistics(LocalDate from, LocalDate to) {
+        return repository.findInRange(from, to);
+    }
+
+    @Scheduled(fixedDelayString = "${appointment.statistics.flush-interval:PT1M}")
+    public synchronized void flush() {
+        if (!properties.enabled()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        List<UsageStatisticDelta> deltas = new ArrayList<>();
+        counters.forEach((key, counter) -> {
+            // a past day's counter is only dropped once a previous flush has drained it and nothing came in since;
+            // the drain below still picks up an increment that got the counter just before it was removed
+            if (key.day().isBefore(today) && counter.isEmpty()) {
+                counters.remove(key, counter);
+            }
+            long created = counter.created.sumThenReset();
+            long deleted = counter.deleted.sumThenReset();
+            if (created != 0 || deleted != 0) {
+                deltas.add(new UsageStatisticDelta(key.day(), key.reason(), created, deleted));
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // a fixed row order keeps concurrent flushes of several instances from deadlocking
+        deltas.sort(Comparator.comparing(UsageStatisticDelta::usageDate).thenComparing(UsageStatisticDelta::reason));
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.addCounts(deltas));
+            log.debug("Flushed {} usage statistic rows", deltas.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} usage statistic rows; keeping them for the next flush", deltas.size(), e);
+            deltas.forEach(delta -> {
+                Counters counter = counters.computeIfAbsent(new Key(delta.usageDate(), delta.reason()), key -> new Counters());
+                counter.created.add(delta.created());
+                counter.deleted.add(delta.deleted());
+            });
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private Counters counters(String reason) {
+        Key key = new Key(LocalDate.now(), reason);
+        Counters counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        if (counters.size() >= properties.maximumKeys()) {
+            key = new Key(key.day(), OTHER_REASON);
+        }
+        return counters.computeIfAbsent(key, k -> new Counters());
+    }
+
+    private static String reasonOf(String reasonNormalized) {
+        return reasonNormalized == null ? NO_REASON : reasonNormalized;
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private record Key(LocalDate day, String reason) {
+    }
+
+    private static final class Counters {
+
+        private final LongAdder created = new LongAdder();
+        private final LongAdder deleted = new LongAdder();
+
+        boolean isEmpty() {
+            return created.sum() == 0 && deleted.sum() == 0;
+        }
+    }
+}
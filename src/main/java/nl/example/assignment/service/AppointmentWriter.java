@@ -0,0 +1,117 @@
+package nl.example.assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.AppointmentWriteProperties;
+import nl.example.assignment.model.Appointment;
+import nl.example.assignment.repository.AppointmentRepository;
+import nl.example.assignment.repository.PatientAppointmentDelta;
+import nl.example.assignment.repository.PatientRepository;
+import nl.example.assignment.repository.ReasonDictionary;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Single insert path for new appointments.
+ *
+ * <p>Small inserts go through {@code saveAll}, which Hibernate sends as batched {@code INSERT}s. On PostgreSQL,
+ * inserts of at least {@code appointment.write.copy-threshold} rows are streamed with binary {@code COPY}
+ * instead, skipping entity persist events and per-row statement execution. Copied appointments are not
+ * managed by the persistence context, which is fine for every caller: none of them touches the rows again
+ * in the same transaction.</p>
+ *
+ * <p>Reasons not yet in {@link ReasonDictionary} are interned first, in the same transaction, since both insert
+ * paths store reasons as dictionary ids.</p>
+ *
+ * <p>Every insert is counted in {@link AppointmentUsageStatistics} once its transaction commits, and added to the
+ * appointment count and latest-appointment pointer of its patients in the same transaction.</p>
+ *
+ * <p>The patient rows are locked before anything is inserted, in the order the database sorts their ids so concurrent
+ * multi-patient writes lock them in the same order. New rows are stamped with the patient's appointment generation
+ * read under that lock, so a concurrent delete either waits for the insert and hides its rows too, or completes
+ * first and the rows are stamped with the new generation.</p>
+ */
+@Component
+@Slf4j
+public class AppointmentWriter {
+
+    private final AppointmentRepository appointmentRepository;
+    private final PatientRepository patientRepository;
+    private final AppointmentUsageStatistics usageStatistics;
+    private final ReasonDictionary reasonDictionary;
+    private final int copyThreshold;
+
+    public AppointmentWriter(AppointmentRepository appointmentRepository,
+                             PatientRepository patientRepository,
+                             AppointmentUsageStatistics usageStatistics,
+                             ReasonDictionary reasonDictionary,
+                             AppointmentWriteProperties properties,
+                             DatabaseDriver databaseDriver) {
+        this.appointmentRepository = appointmentRepository;
+        this.patientRepository = patientRepository;
+        this.usageStatistics = usageStatistics;
+        this.reasonDictionary = reasonDictionary;
+        this.copyThreshold = properties.copyEnabled() && databaseDriver == DatabaseDriver.POSTGRESQL
+                ? Math.max(1, properties.copyThreshold())
+                : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the inserted appointments, with ids assigned
+     */
+    public List<Appointment> insert(List<Appointment> appointments) {
+        usageStatistics.recordCreated(appointments);
+        Set<String> reasons = new HashSet<>();
+        for (Appointment appointment : appointments) {
+            reasons.add(appointment.getReason());
+            reasons.add(appointment.getReasonNormalized());
+        }
+        reasonDictionary.intern(reasons);
+        Set<UUID> patientIds = new TreeSet<>(AppointmentWriter::compareUnsigned);
+        // getId() does not initialize a patient reference
+        appointments.forEach(appointment -> patientIds.add(appointment.getPatient().getId()));
+        Map<UUID, Integer> generations = patientRepository.lockAppointmentGenerations(patientIds);
+        appointments.forEach(appointment -> appointment.setGeneration(generations.get(appointment.getPatient().getId())));
+        List<Appointment> inserted;
+        if (appointments.size() >= copyThreshold) {
+            long copied = appointmentRepository.copyInsert(appointments);
+            log.debug("Copied {} appointments", copied);
+            inserted = appointments;
+        } else {
+            inserted = appointmentRepository.saveAll(appointments);
+        }
+        patientRepository.addAppointments(deltasByPatient(inserted).values());
+        return inserted;
+    }
+
+    private static Map<UUID, PatientAppointmentDelta> deltasByPatient(List<Appointment> appointments) {
+        Map<UUID, PatientAppointmentDelta> deltas = new TreeMap<>(AppointmentWriter::compareUnsigned);
+        for (Appointment appointment : appointments) {
+            UUID patientId = appointment.getPatient().getId();
+            PatientAppointmentDelta single = new PatientAppointmentDelta(patientId, 1, appointment.getId(), appointment.getDate());
+            deltas.merge(patientId, single, AppointmentWriter::merge);
+        }
+        return deltas;
+    }
+
+    private static PatientAppointmentDelta merge(PatientAppointmentDelta a, PatientAppointmentDelta b) {
+        int byDate = a.latestDate().compareTo(b.latestDate());
+        PatientAppointmentDelta later = byDate > 0 || byDate == 0 && compareUnsigned(a.latestId(), b.latestId()) > 0 ? a : b;
+        return new PatientAppointmentDelta(a.patientId(), a.added() + b.added(), later.latestId(), later.latestDate());
+    }
+
+    /**
+     * Orders uuids the way the database does, as unsigned bytes.
+     */
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,197 @@
+package nl.example.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.BulkIngestionProperties;
+import nl.example.assignment.dto.BatchCreateAppointmentsRequestBody;
+import nl.example.assignment.dto.CreateAppointmentRequestBody;
+import nl.example.assignment.dto.IngestionJobStatus;
+import nl.example.assignment.dto.IngestionJobStatus.State;
+import nl.example.assignment.model.TimeOrderedUuidGenerator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for bulk creates: callers enqueue a request and get a job id back, background
+ * writers persist it later.
+ *
+ * <p>The queue holds at most {@code appointment.ingestion.queue-capacity} jobs of at most
+ * {@code max-batch-appointments} appointments each, which the controller checks before submitting;
+ * {@link #submit} returns empty when the queue is full so the caller can push back. Each writer takes the next job and keeps draining
+ * queued jobs into the same transaction until {@code max-batch-appointments} is reached, then writes
+ * them through {@link AppointmentService#createBatchAppointments}, which resolves all patients together
+ * and inserts in JDBC batches. If a coalesced write fails, its jobs are retried one by one so a single
+ * bad request only fails its own job.</p>
+ *
+ * <p>Job states are kept for {@code job-retention} after their last change. Queue depth and rejections
+ * are published as {@code appointment.ingestion.queue.size} and {@code appointment.ingestion.rejected}.
+ * On shutdown the writers finish what is already queued.</p>
+ */
+@Service
+@Slf4j
+public class BulkIngestionService {
+
+    private static final long POLL_MILLIS = 500;
+    private static final long SHUTDOWN_SECONDS = 30;
+
+    private final AppointmentService appointmentService;
+    private final int maxBatchAppointments;
+    private final BlockingQueue<IngestionJob> queue;
+    private final Cache<UUID, IngestionJob> jobs;
+    private final Counter rejected;
+    private final ExecutorService writers;
+    private volatile boolean accepting = true;
+
+    public BulkIngestionService(AppointmentService appointmentService,
+                                BulkIngestionProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.appointmentService = appointmentService;
+        this.maxBatchAppointments = properties.maxBatchAppointments();
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(properties.maximumJobs())
+                .expireAfterWrite(properties.jobRetention())
+                .build();
+        Gauge.builder("appointment.ingestion.queue.size", queue, BlockingQueue::size)
+                .description("Bulk create jobs waiting for a writer")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("appointment.ingestion.rejected")
+                .description("Bulk create jobs refused because the queue was full")
+                .register(meterRegistry);
+
+        this.writers = Executors.newFixedThreadPool(properties.writers(), new CustomizableThreadFactory("ingestion-writer-"));
+        for (int i = 0; i < properties.writers(); i++) {
+            writers.execute(this::writeLoop);
+        }
+    }
+
+    /**
+     * @return the queued job, or empty when the queue is full
+     */
+    public Optional<IngestionJobStatus> submit(CreateAppointmentRequestBody request) {
+        IngestionJob job = new IngestionJob(TimeOrderedUuidGenerator.next(), request);
+        jobs.put(job.id, job);
+        if (!accepting || !queue.offer(job)) {
+            jobs.invalidate(job.id);
+            rejected.increment();
+            log.warn("Rejected bulk create for SSN={}: ingestion queue is full", request.getSsn());
+            return Optional.empty();
+        }
+        log.debug("Queued bulk create job {} with {} appointments", job.id, job.appointmentCount);
+        return Optional.of(job.status());
+    }
+
+    public Optional<IngestionJobStatus> status(UUID jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(IngestionJob::status);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        accepting = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Ingestion writers did not drain the queue within {}s; {} jobs dropped", SHUTDOWN_SECONDS, queue.size());
+            writers.shutdownNow();
+        }
+    }
+
+    private void writeLoop() {
+        List<IngestionJob> batch = new ArrayList<>();
+        try {
+            while (accepting || !queue.isEmpty()) {
+                IngestionJob first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                int appointments = first.appointmentCount;
+                IngestionJob next;
+                while (appointments < maxBatchAppointments && (next = queue.poll()) != null) {
+                    batch.add(next);
+                    appointments += next.appointmentCount;
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(List<IngestionJob> batch) {
+        batch.forEach(job -> update(job, State.RUNNING, null));
+        try {
+            appointmentService.createBatchAppointments(batchRequest(batch));
+            batch.forEach(job -> update(job, State.COMPLETED, null));
+            log.info("Wrote {} coalesced bulk create jobs", batch.size());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.warn("Bulk create job {} failed", batch.get(0).id, e);
+                update(batch.get(0), State.FAILED, e.getMessage());
+                return;
+            }
+            log.warn("Coalesced write of {} jobs failed, retrying them one by one", batch.size(), e);
+            batch.forEach(job -> write(List.of(job)));
+        }
+    }
+
+    private void update(IngestionJob job, State state, String error) {
+        job.state = state;
+        job.error = error;
+        if (state == State.COMPLETED || state == State.FAILED) {
+            job.completedAt = LocalDateTime.now();
+        }
+        // re-put so the retention window counts from the last change
+        jobs.put(job.id, job);
+    }
+
+    private static BatchCreateAppointmentsRequestBody batchRequest(List<IngestionJob> batch) {
+        BatchCreateAppointmentsRequestBody request = new BatchCreateAppointmentsRequestBody();
+        request.setPatients(batch.stream().map(job -> job.request).toList());
+        return request;
+    }
+
+    private static final class IngestionJob {
+
+        private final UUID id;
+        private final CreateAppointmentRequestBody request;
+        private final int appointmentCount;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile State state = State.QUEUED;
+        private volatile LocalDateTime completedAt;
+        private volatile String error;
+
+        private IngestionJob(UUID id, CreateAppointmentRequestBody request) {
+            this.id = id;
+            this.request = request;
+            this.appointmentCount = request.getAppointmentDetails() == null ? 0 : request.getAppointmentDetails().size();
+        }
+
+        private IngestionJobStatus status() {
+            return IngestionJobStatus.builder()
+                    .jobId(id)
+                    .state(state)
+                    .appointmentCount(appointmentCount)
+                    .submittedAt(submittedAt)
+                    .completedAt(completedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package nl.example.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import nl.example.assignment.configuration.LatestAppointmentCacheProperties;
+import nl.example.assignment.dto.AppointmentDto;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of the latest appointment per patient SSN.
+ *
+ * <p>Entries expire by size and time to live. Writers call {@link #invalidate(String)}, which evicts
+ * right away and once more after the surrounding transaction commits. Readers take a {@link #stamp()}
+ * before querying and only store their result if no write has completed since. A read that started
+ * before a concurrent commit therefore cannot put an outdated appointment back into the cache.</p>
+ *
+ * <p>Hit, miss and eviction counts are published as {@code cache.*} meters tagged {@code cache=latestAppointment}.</p>
+ */
+@Component
+public class LatestAppointmentCache {
+
+    static final String CACHE_NAME = "latestAppointment";
+
+    private final Cache<String, AppointmentDto> cache;
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    public LatestAppointmentCache(LatestAppointmentCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public AppointmentDto get(String ssn) {
+        return cache.getIfPresent(ssn);
+    }
+
+    public long stamp() {
+        return writeSequence.get();
+    }
+
+    /**
+     * Stores a value read from the database, unless a write completed after {@code stamp} was taken.
+     */
+    public void put(String ssn, AppointmentDto latest, long stamp) {
+        cache.asMap().compute(ssn, (key, current) -> writeSequence.get() == stamp ? latest : current);
+    }
+
+    public void invalidate(String ssn) {
+        invalidateAll(List.of(ssn));
+    }
+
+    public void invalidateAll(Collection<String> ssns) {
+        evict(ssns);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(ssns);
+                }
+            });
+        }
+    }
+
+    private void evict(Collection<String> ssns) {
+        writeSequence.incrementAndGet();
+        cache.invalidateAll(ssns);
+    }
+}
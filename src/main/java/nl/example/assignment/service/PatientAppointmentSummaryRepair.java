@@ -0,0 +1,127 @@
+package nl.example.assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.configuration.PatientAppointmentSummaryProperties;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Recomputes the appointment count and latest-appointment pointer of patients from their appointments.
+ *
+ * <p>At startup only patients whose count is {@code NULL} are computed: rows that existed before the columns were
+ * added, and patients whose appointments were archived with a partition. On
+ * {@code appointment.patient-summary.repair-cron} every patient is recomputed, correcting drift from writes that
+ * bypassed the application.</p>
+ *
+ * <p>Patients are walked in id order, {@code repair-batch-size} per transaction. Each batch first locks its patient
+ * rows and only then recomputes them in a second statement, which therefore sees every appointment committed by a
+ * writer that held the lock before; writers arriving later wait and add their appointments on top. Appointments of
+ * older generations, hidden and waiting for {@link AppointmentPurger}, are not counted.</p>
+ */
+@Component
+@Slf4j
+public class PatientAppointmentSummaryRepair implements ApplicationRunner {
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private static final String LOCK_MISSING = """
+            SELECT id FROM patient
+             WHERE id > :after AND appointment_count IS NULL
+             ORDER BY id
+             LIMIT :limit
+               FOR UPDATE
+            """;
+
+    private static final String LOCK_ALL = """
+            SELECT id FROM patient
+             WHERE id > :after
+             ORDER BY id
+             LIMIT :limit
+               FOR UPDATE
+            """;
+
+    private static final String RECOMPUTE = """
+            UPDATE patient p
+               SET appointment_count = (SELECT COUNT(*) FROM appointment a
+                                         WHERE a.patient_id = p.id AND a.generation = p.appointment_generation),
+                   latest_appointment_id = (SELECT a.id FROM appointment a
+                                             WHERE a.patient_id = p.id AND a.generation = p.appointment_generation
+                                             ORDER BY a.date DESC, a.id DESC LIMIT 1),
+                   latest_appointment_date = (SELECT a.date FROM appointment a
+                                               WHERE a.patient_id = p.id AND a.generation = p.appointment_generation
+                                               ORDER BY a.date DESC, a.id DESC LIMIT 1)
+             WHERE p.id IN (:ids)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public PatientAppointmentSummaryRepair(NamedParameterJdbcTemplate jdbcTemplate,
+                                           TransactionTemplate transactionTemplate,
+                                           PatientAppointmentSummaryProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, properties.repairBatchSize());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        repairMissing();
+    }
+
+    /**
+     * Computes the summary of every patient that does not have one yet.
+     *
+     * @return the number of patients computed
+     */
+    public long repairMissing() {
+        long repaired = repair(LOCK_MISSING);
+        if (repaired > 0) {
+            log.info("Computed appointment summary for {} patients", repaired);
+        }
+        return repaired;
+    }
+
+    /**
+     * Recomputes the summary of every patient.
+     *
+     * @return the number of patients recomputed
+     */
+    @Scheduled(cron = "${appointment.patient-summary.repair-cron:0 45 3 * * *}")
+    public long repairAll() {
+        long repaired = repair(LOCK_ALL);
+        log.info("Recomputed appointment summary for {} patients", repaired);
+        return repaired;
+    }
+
+    private long repair(String lockSql) {
+        long repaired = 0;
+        UUID after = FIRST_ID;
+        while (true) {
+            UUID from = after;
+            List<UUID> ids = transactionTemplate.execute(status -> {
+                List<UUID> locked = jdbcTemplate.queryForList(lockSql, new MapSqlParameterSource()
+                        .addValue("after", from)
+                        .addValue("limit", batchSize), UUID.class);
+                if (!locked.isEmpty()) {
+                    jdbcTemplate.update(RECOMPUTE, new MapSqlParameterSource("ids", locked));
+                }
+                return locked;
+            });
+            repaired += ids.size();
+            if (ids.size() < batchSize) {
+                return repaired;
+            }
+            after = ids.get(ids.size() - 1);
+        }
+    }
+}
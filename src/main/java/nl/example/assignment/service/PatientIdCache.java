@@ -0,0 +1,68 @@
+package nl.example.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import nl.example.assignment.configuration.PatientIdCacheProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded in-process cache of patient ids by SSN, so hot patients skip the SSN lookup.
+ *
+ * <p>Patients are never deleted and their SSN is not updatable, so an entry cannot go stale; it only leaves the cache
+ * by size or idle time. Ids are stored once they are known to be committed: right away when read in a read-only
+ * transaction, otherwise after the surrounding transaction commits, so a rolled-back insert is never cached.</p>
+ *
+ * <p>Only the identity is cached, not the {@code Patient} entity: its appointment summary changes with every write.</p>
+ *
+ * <p>Hit, miss and eviction counts are published as {@code cache.*} meters tagged {@code cache=patientId}.</p>
+ */
+@Component
+public class PatientIdCache {
+
+    static final String CACHE_NAME = "patientId";
+
+    private final Cache<String, UUID> cache;
+
+    public PatientIdCache(PatientIdCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterAccess(properties.expireAfterAccess())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public UUID get(String ssn) {
+        return cache.getIfPresent(ssn);
+    }
+
+    public void put(String ssn, UUID id) {
+        putAll(Map.of(ssn, id));
+    }
+
+    public void putAll(Map<String, UUID> idBySsn) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Map<String, UUID> committed = Map.copyOf(idBySsn);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.putAll(committed);
+                }
+            });
+        } else {
+            cache.putAll(idBySsn);
+        }
+    }
+
+    public void evict(String ssn) {
+        cache.invalidate(ssn);
+    }
+}
@@ -0,0 +1,64 @@
+package nl.example.assignment.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.example.assignment.repository.PatientIdentity;
+import nl.example.assignment.repository.PatientRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves many SSNs to patient ids with set-based statements instead of one lookup per patient.
+ *
+ * <p>Known SSNs are read with {@code IN} queries of at most {@value #IN_CLAUSE_SIZE} parameters,
+ * the missing ones are inserted in JDBC batches by {@code PatientRepository.insertMissing} and read
+ * back once more. Inserts skip SSNs that another transaction created in the meantime, so the second
+ * read picks up the winner's id. Names of existing patients are never changed.</p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PatientResolver {
+
+    static final int IN_CLAUSE_SIZE = 1000;
+
+    private final PatientRepository patientRepository;
+
+    /**
+     * @param nameBySsn patient name keyed by SSN, used only for patients that do not exist yet
+     * @return patient id keyed by SSN, for every SSN in {@code nameBySsn}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, UUID> resolve(Map<String, String> nameBySsn) {
+        Map<String, UUID> ids = findIds(new ArrayList<>(nameBySsn.keySet()));
+        if (ids.size() == nameBySsn.size()) {
+            return ids;
+        }
+
+        Map<String, String> missing = new LinkedHashMap<>(nameBySsn);
+        missing.keySet().removeAll(ids.keySet());
+        int inserted = patientRepository.insertMissing(missing);
+        ids.putAll(findIds(new ArrayList<>(missing.keySet())));
+        log.debug("Resolved {} patients, {} newly inserted", ids.size(), inserted);
+        return ids;
+    }
+
+    private Map<String, UUID> findIds(List<String> ssns) {
+        Map<String, UUID> ids = new HashMap<>(ssns.size() * 2);
+        for (int from = 0; from < ssns.size(); from += IN_CLAUSE_SIZE) {
+            List<String> slice = ssns.subList(from, Math.min(from + IN_CLAUSE_SIZE, ssns.size()));
+            for (PatientIdentity identity : patientRepository.findIdentitiesBySsnIn(slice)) {
+                ids.put(identity.ssn(), identity.id());
+            }
+        }
+        return ids;
+    }
+}
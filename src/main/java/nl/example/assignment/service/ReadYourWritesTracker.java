@@ -0,0 +1,75 @@
+package nl.example.assignment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import nl.example.assignment.configuration.ReadWriteRoutingDataSource;
+import nl.example.assignment.configuration.ReadYourWritesProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Remembers which patients were written recently, so their reads can bypass a lagging replica.
+ *
+ * <p>Writers call {@link #recordWrites(Collection)}; the window starts right away and again when the
+ * surrounding transaction commits. Patient-scoped reads call {@link #pinIfRecentlyWritten(String)} inside
+ * their read-only transaction, before the first statement, which keeps that transaction on the primary.
+ * Does nothing unless a replica is configured and the window is positive.</p>
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWrites;
+
+    public ReadYourWritesTracker(ReadYourWritesProperties properties,
+                                 @Value("${appointment.datasource.replica.url:}") String replicaUrl) {
+        this.recentWrites = replicaUrl.isBlank() || properties.window().isZero()
+                ? null
+                : Caffeine.newBuilder()
+                        .maximumSize(properties.maximumSize())
+                        .expireAfterWrite(properties.window())
+                        .build();
+    }
+
+    public void recordWrite(String ssn) {
+        recordWrites(List.of(ssn));
+    }
+
+    public void recordWrites(Collection<String> ssns) {
+        if (recentWrites == null) {
+            return;
+        }
+        record(ssns);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(ssns);
+                }
+            });
+        }
+    }
+
+    public void pinIfRecentlyWritten(String ssn) {
+        if (recentWrites == null
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || recentWrites.getIfPresent(ssn) == null) {
+            return;
+        }
+        ReadWriteRoutingDataSource.pinToPrimary();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ReadWriteRoutingDataSource.unpin();
+            }
+        });
+    }
+
+    private void record(Collection<String> ssns) {
+        ssns.forEach(ssn -> recentWrites.put(ssn, Boolean.TRUE));
+    }
+}
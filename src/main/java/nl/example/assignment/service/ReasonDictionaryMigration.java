@@ -0,0 +1,159 @@
+package nl.example.assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves an appointment table created before the reason dictionary onto it, once.
+ *
+ * <p>Runs at startup on PostgreSQL until it has recorded itself in {@code schema_migration}; afterwards a start only
+ * reads that row. Every step is idempotent, so an interrupted run continues on the next start:</p>
+ * <ol>
+ *   <li>adds the nullable {@code reason_id}/{@code reason_normalized_id} columns, which only changes the catalog;</li>
+ *   <li>on a partitioned table, creates {@code idx_appointment_reason_key_date_id} on the parent only, builds it on
+ *       every partition with {@code CREATE INDEX CONCURRENTLY} and attaches it, so writes continue throughout.
+ *       Hibernate maintains the index of an unpartitioned table itself;</li>
+ *   <li>when the legacy {@code reason}/{@code reason_normalized} text columns exist, walks the table in id order,
+ *       {@value #BATCH_SIZE} rows per committed transaction, adding their texts to {@code appointment_reason} and
+ *       filling in the ids;</li>
+ *   <li>drops the full-text {@code reason_search} column and its index from before the dictionary, which nothing
+ *       reads any more.</li>
+ * </ol>
+ *
+ * <p>The text columns themselves are left for the operator to drop (see README "Reason dictionary").</p>
+ */
+@Component
+@Slf4j
+public class ReasonDictionaryMigration implements ApplicationRunner {
+
+    static final String NAME = "reason-dictionary";
+    static final String INDEX = "idx_appointment_reason_key_date_id";
+    static final int BATCH_SIZE = 1000;
+
+    private static final String NEXT_IDS = """
+            SELECT id FROM appointment WHERE id > ? ORDER BY id LIMIT ?
+            """;
+
+    private static final String INTERN_REASONS = """
+            INSERT INTO appointment_reason (reason)
+            SELECT reason FROM appointment
+             WHERE id > ? AND id <= ? AND reason_id IS NULL AND reason IS NOT NULL
+             UNION
+            SELECT reason_normalized FROM appointment
+             WHERE id > ? AND id <= ? AND reason_normalized_id IS NULL AND reason_normalized IS NOT NULL
+                ON CONFLICT (reason) DO NOTHING
+            """;
+
+    private static final String FILL_IDS = """
+            UPDATE appointment a
+               SET reason_id = (SELECT r.id FROM appointment_reason r WHERE r.reason = a.reason),
+                   reason_normalized_id = (SELECT r.id FROM appointment_reason r WHERE r.reason = a.reason_normalized)
+             WHERE a.id > ? AND a.id <= ?
+               AND ((a.reason_id IS NULL AND a.reason IS NOT NULL)
+                    OR (a.reason_normalized_id IS NULL AND a.reason_normalized IS NOT NULL))
+            """;
+
+    private static final String ATTACHED_INDEX = """
+            SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_index x ON x.indexrelid = i.inhrelid
+                            WHERE i.inhparent = to_regclass(?) AND x.indrelid = to_regclass(?))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean active;
+
+    public ReasonDictionaryMigration(JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     DatabaseDriver databaseDriver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.active = databaseDriver == DatabaseDriver.POSTGRESQL;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!active || completed()) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE appointment ADD COLUMN IF NOT EXISTS reason_id integer,"
+                + " ADD COLUMN IF NOT EXISTS reason_normalized_id integer");
+        if (partitioned()) {
+            indexPartitions();
+        }
+        if (hasColumn("reason") && hasColumn("reason_normalized")) {
+            backfill();
+        }
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_appointment_reason_search");
+        jdbcTemplate.execute("ALTER TABLE appointment DROP COLUMN IF EXISTS reason_search");
+        jdbcTemplate.update("INSERT INTO schema_migration (name, completed_date) VALUES (?, ?) ON CONFLICT (name) DO NOTHING",
+                NAME, Timestamp.valueOf(LocalDateTime.now()));
+        log.info("Completed migration {}", NAME);
+    }
+
+    private void indexPartitions() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + INDEX
+                + " ON ONLY appointment (reason_normalized_id, date, id)");
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)",
+                String.class, "appointment");
+        for (String partition : partitions) {
+            if (jdbcTemplate.queryForObject(ATTACHED_INDEX, Boolean.class, INDEX, partition)) {
+                continue;
+            }
+            String index = partition + "_reason_key_date_id";
+            // an interrupted concurrent build leaves an invalid index behind
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY " + index + " ON " + partition
+                    + " (reason_normalized_id, date, id)");
+            jdbcTemplate.execute("ALTER INDEX " + INDEX + " ATTACH PARTITION " + index);
+            log.info("Built {} on partition {}", INDEX, partition);
+        }
+    }
+
+    private void backfill() {
+        long updated = 0;
+        UUID after = new UUID(0, 0);
+        while (true) {
+            List<UUID> ids = jdbcTemplate.queryForList(NEXT_IDS, UUID.class, after, BATCH_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            UUID from = after;
+            UUID to = ids.get(ids.size() - 1);
+            updated += transactionTemplate.execute(status -> {
+                jdbcTemplate.update(INTERN_REASONS, from, to, from, to);
+                return jdbcTemplate.update(FILL_IDS, from, to);
+            });
+            after = to;
+        }
+        log.info("Moved {} appointments onto the reason dictionary", updated);
+    }
+
+    private boolean completed() {
+        return jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM schema_migration WHERE name = ?)", Boolean.class, NAME);
+    }
+
+    private boolean partitioned() {
+        return jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                Boolean.class, "appointment");
+    }
+
+    private boolean hasColumn(String column) {
+        return jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM pg_attribute
+                                WHERE attrelid = to_regclass('appointment') AND attname = ? AND NOT attisdropped)
+                """, Boolean.class, column);
+    }
+}
@@ -0,0 +1,56 @@
+package nl.example.assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the full-text search column and its GIN index to the reason dictionary on PostgreSQL.
+ *
+ * <p>{@code reason_search} is a stored generated {@code tsvector} of the reason, so PostgreSQL keeps it in step
+ * with every insert, and Hibernate never maps or writes it. The {@code simple} text search configuration only
+ * lower-cases and splits words, which suits reasons written in more than one language.</p>
+ *
+ * <p>Both statements only run when their object is missing, because {@code ALTER TABLE} takes an exclusive lock
+ * even when it turns out to have nothing to do. The dictionary holds a few hundred rows, so adding the column is
+ * instant.</p>
+ */
+@Component
+@Slf4j
+public class ReasonSearchIndexInitializer implements ApplicationRunner {
+
+    static final String TABLE = "appointment_reason";
+    static final String SEARCH_COLUMN = "reason_search";
+    static final String SEARCH_INDEX = "idx_appointment_reason_reason_search";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean active;
+
+    public ReasonSearchIndexInitializer(JdbcTemplate jdbcTemplate, DatabaseDriver databaseDriver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.active = databaseDriver == DatabaseDriver.POSTGRESQL;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!active) {
+            return;
+        }
+        boolean columnPresent = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM pg_attribute
+                                WHERE attrelid = to_regclass(?) AND attname = ? AND NOT attisdropped)
+                """, Boolean.class, TABLE, SEARCH_COLUMN);
+        if (!columnPresent) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD COLUMN " + SEARCH_COLUMN
+                    + " tsvector GENERATED ALWAYS AS (to_tsvector('simple', reason)) STORED");
+            log.info("Added full-text search column {} to {}", SEARCH_COLUMN, TABLE);
+        }
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NULL", Boolean.class, SEARCH_INDEX)) {
+            jdbcTemplate.execute("CREATE INDEX " + SEARCH_INDEX + " ON " + TABLE + " USING gin (" + SEARCH_COLUMN + ")");
+            log.info("Created full-text search index {}", SEARCH_INDEX);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+-- Creates the appointment table range-partitioned by month on "date", before Hibernate's schema update runs.
+-- Hibernate cannot see indexes of partitioned tables, so this script owns the table, its indexes and (added at
+-- startup by AppointmentPartitionMaintenance, once patient exists) its foreign key; the schema update skips it.
+-- The primary key has to include the partition key. Rows outside every monthly partition land in
+-- appointment_default until the maintenance task moves them into their own partition.
+-- Reasons are ids into appointment_reason; ReasonDictionaryMigration moves a partitioned table created before that
+-- onto the dictionary. A partitioned table created before the generation column gets it added here: with a constant
+-- default that is a catalog change, and existing rows start at generation 0 like their patients.
+-- An existing unpartitioned appointment table is left as it is; see README "Partitioned appointments".
+DO $$
+BEGIN
+    IF to_regclass('appointment') IS NULL THEN
+        CREATE TABLE appointment (
+            id                   uuid         NOT NULL,
+            reason_id            integer,
+            reason_normalized_id integer,
+            date                 timestamp(6) NOT NULL,
+            created_date         timestamp(6) NOT NULL,
+            modified_date        timestamp(6) NOT NULL,
+            patient_id           uuid,
+            generation           integer      NOT NULL DEFAULT 0,
+            PRIMARY KEY (id, date)
+        ) PARTITION BY RANGE (date);
+        CREATE INDEX idx_appointment_reason_key_date_id ON appointment (reason_normalized_id, date, id);
+        CREATE INDEX idx_appointment_patient_date ON appointment (patient_id, date DESC);
+        CREATE TABLE appointment_default PARTITION OF appointment DEFAULT;
+    ELSIF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('appointment')) THEN
+        IF NOT EXISTS (SELECT 1 FROM pg_attribute
+                        WHERE attrelid = to_regclass('appointment') AND attname = 'generation' AND NOT attisdropped) THEN
+            ALTER TABLE appointment ADD COLUMN generation integer NOT NULL DEFAULT 0;
+        END IF;
+    END IF;
+END
+$$
+@@
@@ -0,0 +1,90 @@
+package nl.example.assignment.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+class CachingJwtDecoderTest {
+
+    private static final String ISSUER = "https://idp.example.nl";
+
+    private final RSAKey signingKey = generateKey();
+    private final AtomicInteger keyLookups = new AtomicInteger();
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(
+            SecurityConfiguration.nimbusJwtDecoder(countingKeySetStub(), Set.of(JWSAlgorithm.RS256),
+                    SecurityConfiguration.tokenValidator(ISSUER, List.of())),
+            100,
+            new SimpleMeterRegistry());
+
+    @Test
+    void whenSameTokenDecodedTwice_thenSignatureIsVerifiedOnce() throws Exception {
+        String token = sign(ISSUER, Instant.now().plusSeconds(300));
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertThat(second.getSubject()).isEqualTo("doctor-1");
+        assertThat(second).isSameAs(first);
+        assertThat(keyLookups).hasValue(1);
+    }
+
+    @Test
+    void whenTokenIsRejected_thenRejectionIsNotCached() throws Exception {
+        String expired = sign(ISSUER, Instant.now().minusSeconds(3600));
+        String foreignIssuer = sign("https://other.example.nl", Instant.now().plusSeconds(300));
+
+        assertThatThrownBy(() -> decoder.decode(expired)).isInstanceOf(JwtValidationException.class);
+        assertThatThrownBy(() -> decoder.decode(expired)).isInstanceOf(JwtValidationException.class);
+        assertThatThrownBy(() -> decoder.decode(foreignIssuer)).isInstanceOf(JwtValidationException.class);
+        assertThat(keyLookups).hasValue(3);
+    }
+
+    private JWKSource<SecurityContext> countingKeySetStub() {
+        ImmutableJWKSet<SecurityContext> keySet = new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK()));
+        return (selector, context) -> {
+            keyLookups.incrementAndGet();
+            return keySet.get(selector, context);
+        };
+    }
+
+    private String sign(String issuer, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("doctor-1")
+                .issuer(issuer)
+                .issueTime(Date.from(expiresAt.minusSeconds(3600)))
+                .expirationTime(Date.from(expiresAt))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    private static RSAKey generateKey() {
+        try {
+            return new RSAKeyGenerator(2048).keyID("test-key").generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
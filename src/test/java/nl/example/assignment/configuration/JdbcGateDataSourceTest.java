@@ -0,0 +1,71 @@
+package nl.example.assignment.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class JdbcGateDataSourceTest {
+
+    private final JdbcGateDataSource dataSource = new JdbcGateDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:gate;DB_CLOSE_DELAY=-1", "sa", ""),
+            1,
+            Duration.ofMillis(50));
+
+    @Test
+    void whenAllPermitsAreTaken_thenNextCallerTimesOutUntilAConnectionIsClosed() throws Exception {
+        Connection first = dataSource.getConnection();
+        assertThat(dataSource.availablePermits()).isZero();
+
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        first.close();
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+
+        try (Connection second = dataSource.getConnection()) {
+            assertThat(second.isValid(1)).isTrue();
+        }
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void whenClosed_thenTheWrappedPoolIsClosed() throws Exception {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:gate-close;DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+
+        new JdbcGateDataSource(pool, 1, Duration.ofMillis(50)).close();
+
+        assertThat(pool.isClosed()).isTrue();
+    }
+
+    @Test
+    void whenPostProcessingDataSources_thenOnlyPoolsAreGatedAtTheirOwnSize() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<JdbcGateProperties> properties = mock(ObjectProvider.class);
+        when(properties.getObject()).thenReturn(new JdbcGateProperties(true, Duration.ofMillis(50)));
+        JdbcGateConfiguration.JdbcGateBeanPostProcessor postProcessor =
+                new JdbcGateConfiguration.JdbcGateBeanPostProcessor(properties);
+        HikariDataSource pool = new HikariDataSource();
+        pool.setMaximumPoolSize(7);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:gate-primary"),
+                new DriverManagerDataSource("jdbc:h2:mem:gate-replica"));
+
+        Object gatedPool = postProcessor.postProcessAfterInitialization(pool, "dataSource");
+
+        assertThat(gatedPool).isInstanceOf(JdbcGateDataSource.class);
+        assertThat(((JdbcGateDataSource) gatedPool).availablePermits()).isEqualTo(7);
+        assertThat(postProcessor.postProcessAfterInitialization(routing, "dataSource")).isSameAs(routing);
+    }
+}
@@ -0,0 +1,68 @@
+package nl.example.assignment.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import nl.example.assignment.service.ReadYourWritesTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(
+            node("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1", "primary"),
+            node("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "replica"));
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final TransactionTemplate writeTransaction =
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final TransactionTemplate readOnlyTransaction =
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(
+            new ReadYourWritesProperties(Duration.ofMinutes(1), 100), "jdbc:h2:mem:routing-replica");
+
+    {
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void whenTransactionIsReadOnly_thenStatementsRunOnTheReplica() {
+        assertThat(nodeIn(writeTransaction, null)).isEqualTo("primary");
+        assertThat(nodeIn(readOnlyTransaction, null)).isEqualTo("replica");
+        assertThat(currentNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void whenPatientWasWrittenWithinTheWindow_thenItsReadsStayOnThePrimary() {
+        writeTransaction.executeWithoutResult(status -> tracker.recordWrite("321-00-0001"));
+
+        assertThat(nodeIn(readOnlyTransaction, "321-00-0001")).isEqualTo("primary");
+        assertThat(nodeIn(readOnlyTransaction, "321-00-0002")).isEqualTo("replica");
+        assertThat(nodeIn(readOnlyTransaction, null)).isEqualTo("replica");
+    }
+
+    private String nodeIn(TransactionTemplate transaction, String readSsn) {
+        return transaction.execute(status -> {
+            if (readSsn != null) {
+                tracker.pinIfRecentlyWritten(readSsn);
+            }
+            return currentNode();
+        });
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource node(String url, String name) {
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+        jdbcTemplate.execute("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -1,5 +1,9 @@
 package nl.example.assignment.controller;
 
+import static nl.example.assignment.controller.AppointmentController.NEXT_CURSOR_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
@@ -8,19 +12,37 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityNotFoundException;
 import nl.example.assignment.AssignmentApplication;
+import nl.example.assignment.repository.PatientRepository;
+import nl.example.assignment.service.AppointmentPurger;
+import nl.example.assignment.service.AppointmentUsageStatistics;
+import nl.example.assignment.service.LatestAppointmentCache;
+import nl.example.assignment.service.PatientAppointmentSummaryRepair;
+import nl.example.assignment.service.PatientIdCache;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
 
 @SpringBootTest(
         classes = AssignmentApplication.class,
@@ -45,10 +67,63 @@ class AppointmentControllerIntegrationTest {
     private static final String BULK_URL = "/api/appointments/bulk";
     private static final String GET_URL = "/api/appointments";
     private static final String LATEST_URL = "/api/appointments/latest";
+    private static final String LATEST_BATCH_URL = "/api/appointments/latest/batch";
+    private static final String COUNT_URL = "/api/appointments/count";
+    private static final String IMPORT_URL = "/api/appointments/import";
+    private static final String STREAM_URL = "/api/appointments/stream";
+    private static final String BATCH_URL = "/api/appointments/batch";
+    private static final String RANGE_URL = "/api/appointments/range";
+    private static final String SEARCH_URL = "/api/appointments/search";
+    private static final String STATISTICS_URL = "/api/appointments/statistics";
+    private static final String EXPORT_URL = "/api/appointments/export";
+    private static final String ASYNC_BULK_URL = "/api/appointments/bulk/async";
+    /**
+     * Patients written by tests that commit, outside the rolled-back test transaction.
+     */
+    private static final List<String> COMMITTED_SSNS =
+            List.of("777-40-0001", "777-50-0001", "777-80-0001", "777-90-0001", "777-90-0002");
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private AppointmentUsageStatistics usageStatistics;
+
+    @Autowired
+    private PatientAppointmentSummaryRepair summaryRepair;
+
+    @Autowired
+    private AppointmentPurger appointmentPurger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PatientIdCache patientIdCache;
+
+    @Autowired
+    private LatestAppointmentCache latestAppointmentCache;
+
+    @AfterEach
+    void deleteCommittedData() {
+        // rolled-back tests leave nothing behind, only those running without a test transaction do
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        usageStatistics.flush();
+        for (String ssn : COMMITTED_SSNS) {
+            jdbcTemplate.update("DELETE FROM appointment_purge WHERE patient_id IN (SELECT id FROM patient WHERE ssn = ?)", ssn);
+            jdbcTemplate.update("DELETE FROM appointment WHERE patient_id IN (SELECT id FROM patient WHERE ssn = ?)", ssn);
+            jdbcTemplate.update("DELETE FROM patient WHERE ssn = ?", ssn);
+            patientIdCache.evict(ssn);
+        }
+        latestAppointmentCache.invalidateAll(COMMITTED_SSNS);
+        jdbcTemplate.update("DELETE FROM appointment_usage_statistic");
+    }
+
     @Test
     void whenCreateBulkAppointments_thenReturnsCreatedDtos() throws Exception {
 
@@ -82,6 +157,86 @@ class AppointmentControllerIntegrationTest {
                         containsInAnyOrder("2025-06-01T12:00:00")));
     }
 
+    @Test
+    void whenGetByReasonInOtherCase_thenMatchesExactReasonOnly() throws Exception {
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BULK_REQUEST))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(GET_URL)
+                        .param("reason", "  CHECKUP "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].reason", is("Checkup")));
+
+        mockMvc.perform(get(GET_URL)
+                        .param("reason", "Check"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void whenGetByReasonWithPageSize_thenPagesFollowNextCursor() throws Exception {
+        String bulkRequest = """
+                {
+                  "ssn": "333-44-5555",
+                  "patientName": "Fay Gray",
+                  "appointmentDetails": [
+                    { "reason": "Dialysis", "date": "2025-05-03T08:00:00" },
+                    { "reason": "Dialysis", "date": "2025-05-01T08:00:00" },
+                    { "reason": "Dialysis", "date": "2025-05-02T08:00:00" }
+                  ]
+                }
+                """;
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bulkRequest))
+                .andExpect(status().isOk());
+
+        MvcResult firstPage = mockMvc.perform(get(GET_URL)
+                        .param("reason", "Dialysis")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].date", contains("2025-05-01T08:00:00", "2025-05-02T08:00:00")))
+                .andExpect(header().exists(NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        mockMvc.perform(get(GET_URL)
+                        .param("reason", "Dialysis")
+                        .param("size", "2")
+                        .param("cursor", firstPage.getResponse().getHeader(NEXT_CURSOR_HEADER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].date", contains("2025-05-03T08:00:00")))
+                .andExpect(header().doesNotExist(NEXT_CURSOR_HEADER));
+
+        mockMvc.perform(get(GET_URL)
+                        .param("reason", "Dialysis")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenStreamByReason_thenWritesOneJsonObjectPerLine() throws Exception {
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BULK_REQUEST))
+                .andExpect(status().isOk());
+
+        MvcResult result = mockMvc.perform(get(STREAM_URL)
+                        .param("reason", "follow-up"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().strip().split("\n");
+        assertThat(lines).hasSize(1);
+        assertThat(lines[0]).contains("\"reason\":\"Follow-up\"", "\"ssn\":\"123-45-6789\"");
+    }
+
     @Test
     void whenDeleteBySsn_thenReturnsDeletedCountAndSsn() throws Exception {
         String bulkRequest = """
@@ -108,6 +263,65 @@ class AppointmentControllerIntegrationTest {
                 .andExpect(jsonPath("$.ssn", is("222-33-4444")));
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void whenDeleteBySsn_thenAppointmentsAreHiddenAtOnceAndPurgedLater() throws Exception {
+        // the purger works on committed rows, so this test writes outside the rolled-back test transaction
+        String ssn = "777-80-0001";
+        String firstRequest = """
+                {
+                  "ssn": "777-80-0001",
+                  "patientName": "Hidde Purge",
+                  "appointmentDetails": [
+                    { "reason": "Hidden checkup", "date": "2025-06-01T12:00:00" },
+                    { "reason": "Hidden follow-up", "date": "2025-06-01T11:00:00" }
+                  ]
+                }
+                """;
+        String laterRequest = """
+                {
+                  "ssn": "777-80-0001",
+                  "patientName": "Hidde Purge",
+                  "appointmentDetails": [ { "reason": "Hidden checkup", "date": "2025-06-02T09:00:00" } ]
+                }
+                """;
+        String rowsOfPatient = "SELECT COUNT(*) FROM appointment a JOIN patient p ON p.id = a.patient_id WHERE p.ssn = ?";
+
+        mockMvc.perform(post(BULK_URL).contentType(MediaType.APPLICATION_JSON).content(firstRequest))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete(GET_URL).param("ssn", ssn))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedCount", is(2)));
+
+        assertThat(jdbcTemplate.queryForObject(rowsOfPatient, Long.class, ssn)).isEqualTo(2);
+        // there is no not-found mapping, so the missing appointment surfaces as the service's exception
+        assertThatThrownBy(() -> mockMvc.perform(get(LATEST_URL).param("ssn", ssn)))
+                .hasCauseInstanceOf(EntityNotFoundException.class);
+        mockMvc.perform(get(GET_URL).param("reason", "Hidden checkup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get(COUNT_URL).param("ssn", ssn))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointmentCount", is(0)));
+
+        mockMvc.perform(post(BULK_URL).contentType(MediaType.APPLICATION_JSON).content(laterRequest))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(GET_URL).param("reason", "Hidden checkup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].date", contains("2025-06-02T09:00:00")));
+
+        appointmentPurger.purgePending();
+        assertThat(jdbcTemplate.queryForObject(rowsOfPatient, Long.class, ssn)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointment_purge a JOIN patient p"
+                + " ON p.id = a.patient_id WHERE p.ssn = ?", Long.class, ssn)).isZero();
+        mockMvc.perform(get(LATEST_URL).param("ssn", ssn))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date", is("2025-06-02T09:00:00")));
+        mockMvc.perform(get(COUNT_URL).param("ssn", ssn))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointmentCount", is(1)));
+    }
+
     @Test
     void whenGetLatest_thenReturnsMostRecentAppointment() throws Exception {
         String bulkRequest = """
@@ -134,4 +348,443 @@ class AppointmentControllerIntegrationTest {
                 .andExpect(jsonPath("$.reason", is("Follow-up")))
                 .andExpect(jsonPath("$.date", is("2025-08-05T09:30:00")));
     }
+
+    @Test
+    void whenGetLatestBatch_thenReturnsLatestPerPatientAndReportsTheRest() throws Exception {
+        mockMvc.perform(post(BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "patients": [
+                                    { "ssn": "777-21-0001", "patientName": "Ida Smit",
+                                      "appointmentDetails": [
+                                        { "reason": "Older", "date": "2025-01-01T09:00:00" },
+                                        { "reason": "Newest", "date": "2025-03-01T09:00:00" }
+                                      ] },
+                                    { "ssn": "777-21-0002", "patientName": "Bas Smit",
+                                      "appointmentDetails": [
+                                        { "reason": "Only", "date": "2025-02-01T09:00:00" }
+                                      ] },
+                                    { "ssn": "777-21-0003", "patientName": "Eva Smit",
+                                      "appointmentDetails": [
+                                        { "reason": "Removed", "date": "2025-02-01T09:00:00" }
+                                      ] }
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete(GET_URL).param("ssn", "777-21-0003"))
+                .andExpect(status().isOk());
+        // served from the cache in the batch below
+        mockMvc.perform(get(LATEST_URL).param("ssn", "777-21-0002"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post(LATEST_BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "ssns": ["777-21-0001", "777-21-0002", "777-21-0003", "777-21-9999", " 777-21-0001 "] }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.latest.length()", is(2)))
+                .andExpect(jsonPath("$.latest['777-21-0001'].reason", is("Newest")))
+                .andExpect(jsonPath("$.latest['777-21-0002'].reason", is("Only")))
+                .andExpect(jsonPath("$.ssnsWithoutAppointments", contains("777-21-0003")))
+                .andExpect(jsonPath("$.unknownSsns", contains("777-21-9999")));
+    }
+
+    @Test
+    void whenImportNdjson_thenReturnsSummaryWithFailedLines() throws Exception {
+        String ndjson = """
+                {"ssn": "888-11-0001", "patientName": "Carol White", "reason": "Physio", "date": "2025-09-01T10:00:00"}
+                {"ssn": "888-11-0002", "patientName": "Dan Green", "reason": "Physio", "date": "2025-09-02T10:00:00"}
+                {"ssn": "888-11-0003", "patientName": "Eve Black", "reason": "Physio"}
+                not json at all
+
+                {"ssn": "888-11-0001", "patientName": "Carol White", "reason": "X-ray", "date": "2025-09-03T10:00:00"}
+                """;
+
+        mockMvc.perform(post(IMPORT_URL)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.receivedCount", is(5)))
+                .andExpect(jsonPath("$.importedCount", is(3)))
+                .andExpect(jsonPath("$.failedCount", is(2)))
+                .andExpect(jsonPath("$.failedLines", contains(3, 4)))
+                .andExpect(jsonPath("$.failedLinesTruncated", is(false)));
+
+        mockMvc.perform(get(LATEST_URL)
+                        .param("ssn", "888-11-0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason", is("X-ray")));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void whenImportChunkFailsToCommit_thenOnlyTheOffendingLinesFail() throws Exception {
+        // a failed chunk is retried in transactions of its own, so this test commits; the test profile caps lines at 1024
+        String ndjson = String.join("\n",
+                "{\"ssn\": \"777-90-0001\", \"patientName\": \"Ivo Import\", \"reason\": \"Kept\", \"date\": \"2025-09-01T10:00:00\"}",
+                "{\"ssn\": \"777-90-0002\", \"patientName\": \"%s\", \"reason\": \"Name too long\", \"date\": \"2025-09-01T10:00:00\"}"
+                        .formatted("N".repeat(300)),
+                "{\"ssn\": \"777-90-0003\", \"patientName\": \"Lou Long\", \"reason\": \"%s\", \"date\": \"2025-09-01T10:00:00\"}"
+                        .formatted("R".repeat(2000)),
+                "{\"ssn\": \"777-90-0001\", \"patientName\": \"Ivo Import\", \"reason\": \"Kept later\", \"date\": \"2025-09-02T10:00:00\"}");
+
+        mockMvc.perform(post(IMPORT_URL)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.receivedCount", is(4)))
+                .andExpect(jsonPath("$.importedCount", is(2)))
+                .andExpect(jsonPath("$.failedCount", is(2)))
+                .andExpect(jsonPath("$.failedLines", containsInAnyOrder(2, 3)));
+
+        mockMvc.perform(get(LATEST_URL).param("ssn", "777-90-0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason", is("Kept later")));
+        assertThat(patientRepository.findIdBySsn("777-90-0002")).isEmpty();
+    }
+
+    @Test
+    void whenAppointmentsAddedAfterLatestWasRead_thenLatestReflectsTheWrite() throws Exception {
+        String bulkRequest = """
+                {
+                  "ssn": "444-55-6666",
+                  "patientName": "Gus Hall",
+                  "appointmentDetails": [ { "reason": "Intake", "date": "2025-03-01T08:00:00" } ]
+                }
+                """;
+        String laterRequest = """
+                {
+                  "ssn": "444-55-6666",
+                  "patientName": "Gus Hall",
+                  "appointmentDetails": [ { "reason": "Review", "date": "2025-04-01T08:00:00" } ]
+                }
+                """;
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bulkRequest))
+                .andExpect(status().isOk());
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get(LATEST_URL).param("ssn", "444-55-6666"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.reason", is("Intake")));
+        }
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(laterRequest))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(LATEST_URL).param("ssn", "444-55-6666"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason", is("Review")));
+    }
+
+    @Test
+    void whenAppointmentsWrittenAndRepaired_thenCountAndLatestFollowThePatientSummary() throws Exception {
+        String firstRequest = """
+                {
+                  "ssn": "444-55-7777",
+                  "patientName": "Ida Wells",
+                  "appointmentDetails": [
+                    { "reason": "Intake",  "date": "2025-05-01T08:00:00" },
+                    { "reason": "Scan",    "date": "2025-05-03T08:00:00" }
+                  ]
+                }
+                """;
+        String olderRequest = """
+                {
+                  "ssn": "444-55-7777",
+                  "patientName": "Ida Wells",
+                  "appointmentDetails": [ { "reason": "Referral", "date": "2025-04-20T08:00:00" } ]
+                }
+                """;
+
+        mockMvc.perform(post(BULK_URL).contentType(MediaType.APPLICATION_JSON).content(firstRequest))
+                .andExpect(status().isOk());
+        mockMvc.perform(post(BULK_URL).contentType(MediaType.APPLICATION_JSON).content(olderRequest))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(COUNT_URL).param("ssn", "444-55-7777"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointmentCount", is(3)));
+        mockMvc.perform(get(LATEST_URL).param("ssn", "444-55-7777"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason", is("Scan")));
+
+        jdbcTemplate.update("UPDATE patient SET appointment_count = NULL, latest_appointment_id = NULL,"
+                + " latest_appointment_date = NULL WHERE ssn = ?", "444-55-7777");
+        mockMvc.perform(get(COUNT_URL).param("ssn", "444-55-7777"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointmentCount", is(3)));
+        assertThat(summaryRepair.repairMissing()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT appointment_count FROM patient WHERE ssn = ?", Long.class, "444-55-7777")).isEqualTo(3);
+
+        mockMvc.perform(delete(GET_URL).param("ssn", "444-55-7777"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedCount", is(3)));
+        mockMvc.perform(get(COUNT_URL).param("ssn", "444-55-7777"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointmentCount", is(0)));
+    }
+
+    @Test
+    void whenCreateBatchForManyPatients_thenResolvesEachSsnOnce() throws Exception {
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-20-0001",
+                                  "patientName": "Hana Ito",
+                                  "appointmentDetails": [ { "reason": "Intake", "date": "2025-05-01T08:00:00" } ]
+                                }
+                                """))
+                .andExpect(status().isOk());
+        String batchRequest = """
+                {
+                  "patients": [
+                    { "ssn": "777-20-0001", "patientName": "Hana Ito",
+                      "appointmentDetails": [ { "reason": "Review", "date": "2025-06-01T08:00:00" } ] },
+                    { "ssn": "777-20-0002", "patientName": "Ivan Roy",
+                      "appointmentDetails": [ { "reason": "Intake", "date": "2025-06-02T08:00:00" },
+                                              { "reason": "Scan", "date": "2025-06-03T08:00:00" } ] },
+                    { "ssn": "777-20-0002", "patientName": "Ivan Roy",
+                      "appointmentDetails": [ { "reason": "Results", "date": "2025-06-04T08:00:00" } ] }
+                  ]
+                }
+                """;
+
+        mockMvc.perform(post(BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchRequest))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.patientCount", is(2)))
+                .andExpect(jsonPath("$.appointmentCount", is(4)));
+
+        mockMvc.perform(get(LATEST_URL).param("ssn", "777-20-0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason", is("Review")));
+        mockMvc.perform(get(LATEST_URL).param("ssn", "777-20-0002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason", is("Results")));
+    }
+
+    @Test
+    void whenCreateBatchAboveTheConfiguredCap_thenBadRequest() throws Exception {
+        // the test profile caps a batch at 10 appointments
+        String details = String.join(",", Collections.nCopies(11,
+                "{ \"reason\": \"Capped\", \"date\": \"2025-06-02T08:00:00\" }"));
+
+        mockMvc.perform(post(BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "patients": [
+                                    { "ssn": "777-22-0001", "patientName": "Max Cap", "appointmentDetails": [ %s ] }
+                                  ]
+                                }
+                                """.formatted(details)))
+                .andExpect(status().isBadRequest());
+
+        assertThat(patientRepository.findIdBySsn("777-22-0001")).isEmpty();
+    }
+
+    @Test
+    void whenGetInRange_thenReturnsNewestAppointmentsWithinRange() throws Exception {
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-30-0001",
+                                  "patientName": "Jana Novak",
+                                  "appointmentDetails": [
+                                    { "reason": "January", "date": "2025-01-15T09:00:00" },
+                                    { "reason": "February", "date": "2025-02-15T09:00:00" },
+                                    { "reason": "March", "date": "2025-03-15T09:00:00" },
+                                    { "reason": "April", "date": "2025-04-01T00:00:00" }
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(RANGE_URL)
+                        .param("ssn", "777-30-0001")
+                        .param("from", "2025-01-01T00:00:00")
+                        .param("to", "2025-04-01T00:00:00")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].reason", contains("March", "February")));
+
+        mockMvc.perform(get(RANGE_URL)
+                        .param("ssn", "777-30-0001")
+                        .param("from", "2025-04-01T00:00:00")
+                        .param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenSearch_thenReturnsAppointmentsContainingEveryWord() throws Exception {
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-31-0001",
+                                  "patientName": "Tomas Berg",
+                                  "appointmentDetails": [
+                                    { "reason": "Sprained tendon, left ankle", "date": "2025-05-01T09:00:00" },
+                                    { "reason": "Ankle tendon check", "date": "2025-06-01T09:00:00" },
+                                    { "reason": "Tendon pain in wrist", "date": "2025-07-01T09:00:00" }
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(SEARCH_URL).param("q", "TENDON ankle"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].reason", contains("Ankle tendon check", "Sprained tendon, left ankle")))
+                .andExpect(jsonPath("$[0].patient.ssn", is("777-31-0001")));
+
+        mockMvc.perform(get(SEARCH_URL).param("q", "tendon").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void whenCreateBulkAsync_thenJobCompletesInTheBackground() throws Exception {
+        // the job commits on an ingestion writer thread, so this test runs without a rolled-back transaction
+        MvcResult accepted = mockMvc.perform(post(ASYNC_BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-40-0001",
+                                  "patientName": "Kim Lee",
+                                  "appointmentDetails": [
+                                    { "reason": "Queued", "date": "2025-07-01T09:00:00" },
+                                    { "reason": "Queued later", "date": "2025-07-02T09:00:00" }
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.appointmentCount", is(2)))
+                .andReturn();
+        String jobUrl = accepted.getResponse().getHeader("Location");
+
+        String state = null;
+        for (int attempt = 0; attempt < 100 && !"COMPLETED".equals(state); attempt++) {
+            Thread.sleep(100);
+            state = JsonPath.read(mockMvc.perform(get(jobUrl))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), "$.state");
+        }
+        assertThat(state).isEqualTo("COMPLETED");
+
+        mockMvc.perform(get(LATEST_URL).param("ssn", "777-40-0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason", is("Queued later")));
+    }
+
+    @Test
+    void whenCreateBulkAsyncAboveTheConfiguredCap_thenBadRequest() throws Exception {
+        // the test profile caps a queued job at 10 appointments
+        String details = String.join(",", Collections.nCopies(11,
+                "{ \"reason\": \"Capped\", \"date\": \"2025-07-01T09:00:00\" }"));
+
+        mockMvc.perform(post(ASYNC_BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-41-0001",
+                                  "patientName": "Max Queue",
+                                  "appointmentDetails": [ %s ]
+                                }
+                                """.formatted(details)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenExport_thenStreamsFilteredAppointmentsAsCsvOrNdjson() throws Exception {
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-60-0001",
+                                  "patientName": "Ada de Vries",
+                                  "appointmentDetails": [
+                                    { "reason": "Knee, left", "date": "2025-03-01T09:00:00" },
+                                    { "reason": "Say \\"aah\\"", "date": "2025-02-01T09:00:00" },
+                                    { "reason": "Out of range", "date": "2025-05-01T09:00:00" }
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk());
+
+        String csv = mockMvc.perform(get(EXPORT_URL)
+                        .param("format", "csv")
+                        .param("ssn", "777-60-0001")
+                        .param("from", "2025-01-01T00:00:00")
+                        .param("to", "2025-04-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"appointments.csv\""))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.split("\r\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("id,reason,date,patientName,patientSsn");
+        assertThat(lines[1]).endsWith(",\"Say \"\"aah\"\"\",2025-02-01T09:00:00,Ada de Vries,777-60-0001");
+        assertThat(lines[2]).endsWith(",\"Knee, left\",2025-03-01T09:00:00,Ada de Vries,777-60-0001");
+
+        String ndjson = mockMvc.perform(get(EXPORT_URL).param("ssn", "777-60-0001"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(ndjson.lines()).hasSize(3);
+        assertThat(JsonPath.<String>read(ndjson.lines().toList().get(2), "$.reason")).isEqualTo("Out of range");
+
+        mockMvc.perform(get(EXPORT_URL).param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void whenAppointmentsCreatedAndDeleted_thenStatisticsCountThemAfterFlush() throws Exception {
+        // statistics are only counted on commit, so this test writes outside the rolled-back test transaction
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-50-0001",
+                                  "patientName": "Noor Visser",
+                                  "appointmentDetails": [
+                                    { "reason": "Usage Check", "date": "2025-08-01T09:00:00" },
+                                    { "reason": "usage check ", "date": "2025-08-02T09:00:00" },
+                                    { "reason": "Usage other", "date": "2025-08-03T09:00:00" }
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete(GET_URL).param("ssn", "777-50-0001"))
+                .andExpect(status().isOk());
+        // deletes are counted as the purger removes the rows
+        appointmentPurger.purgePending();
+        usageStatistics.flush();
+
+        LocalDate today = LocalDate.now();
+        mockMvc.perform(get(STATISTICS_URL)
+                        .param("from", today.toString())
+                        .param("to", today.plusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.reason == 'usage check')].createdCount", contains(2)))
+                .andExpect(jsonPath("$[?(@.reason == 'usage check')].deletedCount", contains(2)))
+                .andExpect(jsonPath("$[?(@.reason == 'usage other')].createdCount", contains(1)));
+
+        mockMvc.perform(get(STATISTICS_URL)
+                        .param("from", today.toString())
+                        .param("to", today.plusYears(2).toString()))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,59 @@
+package nl.example.assignment.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import nl.example.assignment.AssignmentApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(
+        classes = AssignmentApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK
+)
+@AutoConfigureMockMvc(addFilters = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void whenEndpointsAreCalled_thenPrometheusScrapeContainsLatencyAndJdbcMetrics() throws Exception {
+        mockMvc.perform(post("/api/appointments/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "777-00-0001",
+                                  "patientName": "Ivy Metrics",
+                                  "appointmentDetails": [ { "reason": "Metrics", "date": "2025-01-01T08:00:00" } ]
+                                }
+                                """))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/appointments/latest").param("ssn", "777-00-0001"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "spring_data_repository_invocations_seconds_bucket{exception=\"None\",method=\"findLatestByPatientPointer\"")))
+                .andExpect(content().string(containsString(
+                        "appointment_request_jdbc_statements_count{method=\"GET\",uri=\"/api/appointments/latest\"}")))
+                .andExpect(content().string(containsString(
+                        "appointment_request_jdbc_batches_sum{method=\"POST\",uri=\"/api/appointments/bulk\"}")))
+                .andExpect(content().string(containsString("hibernate_flushes_total")))
+                .andExpect(content().string(containsString("hibernate_entities_loads_total")));
+    }
+}
@@ -0,0 +1,26 @@
+package nl.example.assignment.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void whenGeneratingInABurst_thenIdsAreVersion7AndStrictlyIncreasing() {
+        long before = System.currentTimeMillis();
+        UUID previous = TimeOrderedUuidGenerator.next();
+
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = TimeOrderedUuidGenerator.next();
+            assertThat(id.version()).isEqualTo(7);
+            assertThat(id.variant()).isEqualTo(2);
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+
+        long timestamp = previous.getMostSignificantBits() >>> 16;
+        assertThat(timestamp).isGreaterThanOrEqualTo(before);
+    }
+}
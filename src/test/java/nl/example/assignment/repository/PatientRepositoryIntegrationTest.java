@@ -0,0 +1,35 @@
+package nl.example.assignment.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import nl.example.assignment.AssignmentApplication;
+import nl.example.assignment.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(classes = AssignmentApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional
+@ActiveProfiles("test")
+class PatientRepositoryIntegrationTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void whenUpsertingSameSsnTwice_thenReturnsExistingPatientAndKeepsItsName() {
+        UUID first = patientRepository.upsertBySsn("Hank Hill", "999-00-1111");
+        UUID second = patientRepository.upsertBySsn("Someone Else", "999-00-1111");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(patientRepository.findBySsn("999-00-1111"))
+                .get()
+                .extracting(Patient::getId, Patient::getName)
+                .containsExactly(first, "Hank Hill");
+    }
+}
@@ -0,0 +1,47 @@
+package nl.example.assignment.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import nl.example.assignment.AssignmentApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(classes = AssignmentApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional
+@ActiveProfiles("test")
+class ReasonDictionaryIntegrationTest {
+
+    @Autowired
+    private ReasonDictionary reasonDictionary;
+
+    @Test
+    void whenInterningReasonsTwice_thenEachTextKeepsOneIdAndOneSharedInstance() {
+        reasonDictionary.intern(List.of("Dictionary Checkup", "dictionary checkup"));
+        reasonDictionary.intern(List.of("Dictionary Checkup"));
+
+        int exact = reasonDictionary.require("Dictionary Checkup");
+        int normalized = reasonDictionary.require("dictionary checkup");
+
+        assertThat(exact).isNotEqualTo(normalized);
+        assertThat(reasonDictionary.reason(exact))
+                .isEqualTo("Dictionary Checkup")
+                .isSameAs(reasonDictionary.reason(exact));
+        assertThat(reasonDictionary.find("never written")).isNull();
+    }
+
+    @Test
+    void whenReasonIsRememberedAsMissing_thenInterningItStillGivesAnId() {
+        assertThat(reasonDictionary.find("Written Later")).isNull();
+
+        reasonDictionary.intern(List.of("Written Later"));
+
+        int id = reasonDictionary.require("Written Later");
+        assertThat(reasonDictionary.reason(id)).isEqualTo("Written Later");
+    }
+}
@@ -0,0 +1,42 @@
+package nl.example.assignment.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AppointmentPartitionMaintenanceTest {
+
+    @Test
+    void whenNamingAPartition_thenMonthRoundTrips() {
+        YearMonth month = YearMonth.of(2025, 3);
+
+        assertThat(AppointmentPartitionMaintenance.partitionName(month)).isEqualTo("appointment_p2025_03");
+        assertThat(AppointmentPartitionMaintenance.monthOf("appointment_p2025_03")).isEqualTo(month);
+    }
+
+    @Test
+    void whenTableIsNotAMonthlyPartition_thenItHasNoMonth() {
+        assertThat(AppointmentPartitionMaintenance.monthOf(AppointmentPartitionMaintenance.DEFAULT_PARTITION)).isNull();
+        assertThat(AppointmentPartitionMaintenance.monthOf("appointment_p2025_13")).isNull();
+        assertThat(AppointmentPartitionMaintenance.monthOf("appointment_p2025_03_old")).isNull();
+    }
+
+    @Test
+    void whenPartitionEndedBeforeTheRetention_thenItIsExpired() {
+        List<String> partitions = List.of(
+                "appointment_p2024_08",
+                "appointment_p2024_09",
+                "appointment_p2024_10",
+                "appointment_p2026_10",
+                AppointmentPartitionMaintenance.DEFAULT_PARTITION,
+                "appointment_archive");
+
+        // 24 months before October 2026 keeps October 2024 and everything after it
+        assertThat(AppointmentPartitionMaintenance.expiredPartitions(partitions, YearMonth.of(2026, 10), 24))
+                .containsExactly("appointment_p2024_08", "appointment_p2024_09");
+        assertThat(AppointmentPartitionMaintenance.expiredPartitions(partitions, YearMonth.of(2026, 10), 0))
+                .containsExactly("appointment_p2024_08", "appointment_p2024_09", "appointment_p2024_10");
+    }
+}
@@ -0,0 +1,129 @@
+package nl.example.assignment.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import nl.example.assignment.AssignmentApplication;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs without a test transaction: ids are only cached once their transaction commits.
+ */
+@SpringBootTest(
+        classes = AssignmentApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK
+)
+@AutoConfigureMockMvc(addFilters = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class PatientIdCacheIntegrationTest {
+
+    private static final String ROLLED_BACK_SSN = "777-70-0001";
+    private static final String HOT_SSN = "777-70-0002";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientIdCache patientIdCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void deleteCommittedData() {
+        for (String ssn : List.of(ROLLED_BACK_SSN, HOT_SSN)) {
+            jdbcTemplate.update("DELETE FROM appointment_purge WHERE patient_id IN (SELECT id FROM patient WHERE ssn = ?)", ssn);
+            jdbcTemplate.update("DELETE FROM appointment WHERE patient_id IN (SELECT id FROM patient WHERE ssn = ?)", ssn);
+            jdbcTemplate.update("DELETE FROM patient WHERE ssn = ?", ssn);
+            patientIdCache.evict(ssn);
+        }
+    }
+
+    @Test
+    void whenPatientInsertRollsBack_thenItsIdIsNotCached() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                create(ROLLED_BACK_SSN);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertThat(patientIdCache.get(ROLLED_BACK_SSN)).isNull();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM patient WHERE ssn = ?", Integer.class, ROLLED_BACK_SSN)).isZero();
+    }
+
+    @Test
+    void whenPatientIsCached_thenLatestAndDeleteSkipTheSsnLookup() throws Exception {
+        create(HOT_SSN);
+        assertThat(patientIdCache.get(HOT_SSN)).isNotNull();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+        long statements = statistics.getPrepareStatementCount();
+
+        mockMvc.perform(get("/api/appointments/latest").param("ssn", HOT_SSN))
+                .andExpect(status().isOk());
+
+        // the pointer query alone, without the patient lookup by SSN
+        assertThat(statistics.getPrepareStatementCount() - statements).isEqualTo(1);
+
+        mockMvc.perform(delete("/api/appointments").param("ssn", HOT_SSN))
+                .andExpect(status().isOk());
+
+        assertThat(cacheGets("hit") - hits).isEqualTo(2);
+        assertThat(cacheGets("miss")).isEqualTo(misses);
+    }
+
+    private void create(String ssn) throws Exception {
+        mockMvc.perform(post("/api/appointments/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "ssn": "%s",
+                                  "patientName": "Cas Cache",
+                                  "appointmentDetails": [ { "reason": "Cached", "date": "2025-01-01T08:00:00" } ]
+                                }
+                                """.formatted(ssn)))
+                .andExpect(status().isOk());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", PatientIdCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}